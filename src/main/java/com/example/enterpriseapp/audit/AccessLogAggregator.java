@@ -0,0 +1,115 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+import com.example.enterpriseapp.service.AuditService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sčítá přístupy podle (metoda, šablona cesty, třída statusu, uživatel) a jednou
+ * za interval zapíše za každý klíč jeden řádek s počtem a min/avg/max latencí.
+ * <p>
+ * Okno se před zápisem uzavře a flush počká, až doběhnou zápisy, které si ho vzaly ještě
+ * před výměnou - jinak by se jejich počty ztratily nebo by se zapsalo napůl přičtené Stats.
+ * Zápis, který narazí na uzavřené okno, se přičte do nového.
+ */
+@Component
+public class AccessLogAggregator {
+
+    private final AuditService auditService;
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window());
+
+    public AccessLogAggregator(AuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    public void record(String method, String pathTemplate, int status, Long userId, long durationNanos) {
+        Key key = new Key(method, pathTemplate, status / 100, userId);
+        while (true) {
+            Window current = window.get();
+            // Nejdřív se přihlásit, pak kontrolovat uzavření - flush to dělá v opačném pořadí
+            current.writers.incrementAndGet();
+            try {
+                if (!current.closed) {
+                    current.stats.computeIfAbsent(key, k -> new Stats()).add(durationNanos);
+                    return;
+                }
+            } finally {
+                current.writers.decrementAndGet();
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.audit.access-log.flush-interval-ms:60000}")
+    public void flush() {
+        Window finished = window.getAndSet(new Window());
+        finished.closed = true;
+        // Zápisy jsou krátké a neblokující, stačí počkat aktivně
+        while (finished.writers.get() > 0) {
+            Thread.onSpinWait();
+        }
+        finished.stats.forEach((key, stats) -> auditService.log(toAuditLog(finished.start, key, stats)));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static AuditLog toAuditLog(LocalDateTime windowStart, Key key, Stats stats) {
+        long count = stats.count.sum();
+        String summary = String.format(Locale.ROOT, "%s %s %dxx count=%d minMs=%.3f avgMs=%.3f maxMs=%.3f",
+                key.method(), key.pathTemplate(), key.statusClass(), count,
+                stats.min.get() / 1_000_000.0,
+                stats.totalNanos.sum() / (double) count / 1_000_000.0,
+                stats.max.get() / 1_000_000.0);
+
+        AuditLog log = new AuditLog();
+        log.setTimestamp(windowStart);
+        log.setActorUserId(key.userId());
+        log.setEntityName("HttpRequest");
+        log.setEntityId(null);
+        log.setFieldName("endpoint");
+        log.setOldValue(null);
+        log.setNewValue(summary);
+        log.setActionType("ACCESS_SUMMARY");
+        log.setIpAddress("-");
+        log.setLogLevel(key.statusClass() >= 4 ? LogLevel.WARN : LogLevel.INFO);
+        return log;
+    }
+
+    private record Key(String method, String pathTemplate, int statusClass, Long userId) {
+    }
+
+    private static final class Window {
+        private final LocalDateTime start = LocalDateTime.now();
+        private final Map<Key, Stats> stats = new ConcurrentHashMap<>();
+        private final AtomicInteger writers = new AtomicInteger();
+        private volatile boolean closed;
+    }
+
+    private static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            min.accumulateAndGet(nanos, Math::min);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.enterpriseapp.audit;
+
+/**
+ * Režim access logu v RequestLoggingFilter.
+ */
+public enum AccessLogMode {
+    /** Jeden řádek audit_log na každý požadavek. */
+    FULL,
+    /** Požadavky se sčítají v paměti a periodicky se zapíše jeden souhrnný řádek na klíč. */
+    AGGREGATE
+}
@@ -0,0 +1,260 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.common.KeysetCursor;
+import com.example.enterpriseapp.dto.AuditLogFilter;
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Archiv starých auditních záznamů ve sloupcových segmentech na lokálním disku
+ * (formát viz AuditArchiveSegment).
+ * <p>
+ * Archivace bere řádky starší než app.audit.archive.older-than v pořadí (timestamp, id),
+ * zapíše je do nového segmentu (nejdřív jako .aseg.pending) a pak z audit_log smaže
+ * přesně ta id, která segment obsahuje. Teprve potom se segment přejmenuje na .aseg
+ * a začne se v něm hledat. Po pádu se nedokončené segmenty dokončí při dalším běhu.
+ * <p>
+ * Archivované řádky jsou starší než older-than, takže AuditQueryService může po
+ * vyčerpání tabulky pokračovat archivem se stejným kurzorem. Řádek se starším časem
+ * zapsaný pozdě (žurnál, opakování) se archivuje dalším během do nového segmentu -
+ * segmenty se proto mohou časově překrývat a search je slučuje.
+ */
+@Component
+public class AuditArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditArchive.class);
+
+    private static final String SEGMENT_SUFFIX = ".aseg";
+    private static final String PENDING_SUFFIX = ".pending";
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private static final String SELECT_SQL = "SELECT id, timestamp, actor_user_id, entity_name, entity_id, field_name, "
+            + "old_value, new_value, action_type, ip_address, log_level FROM audit_log WHERE timestamp < ?";
+
+    private static final Comparator<AuditArchiveSegment> SEGMENT_ORDER = Comparator
+            .comparingLong(AuditArchiveSegment::getLastTimestamp)
+            .thenComparingLong(AuditArchiveSegment::getLastId);
+    private static final Comparator<AuditLog> NEWEST_FIRST = Comparator
+            .comparing(AuditLog::getTimestamp)
+            .thenComparing(AuditLog::getId)
+            .reversed();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration olderThan;
+    private final int segmentRows;
+
+    // Seřazené podle klíče posledního řádku, vzestupně
+    private final List<AuditArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final ReentrantLock archiveLock = new ReentrantLock();
+    private final Counter archivedRows;
+
+    public AuditArchive(JdbcTemplate jdbcTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.audit.archive.enabled:false}") boolean enabled,
+                        @Value("${app.audit.archive.dir:audit-archive}") Path directory,
+                        @Value("${app.audit.archive.older-than:90d}") Duration olderThan,
+                        @Value("${app.audit.archive.segment-rows:100000}") int segmentRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.olderThan = olderThan;
+        this.segmentRows = segmentRows;
+
+        this.archivedRows = Counter.builder("audit.archive.rows").register(meterRegistry);
+        Gauge.builder("audit.archive.segments", segments, List::size).register(meterRegistry);
+        Gauge.builder("audit.archive.bytes", segments,
+                list -> list.stream().mapToLong(AuditArchiveSegment::getSizeBytes).sum()).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<AuditArchiveSegment> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                loaded.add(AuditArchiveSegment.open(file));
+            }
+        }
+        loaded.sort(SEGMENT_ORDER);
+        segments.addAll(loaded);
+        logger.info("Opened {} audit archive segment(s) in {}", loaded.size(), directory);
+    }
+
+    /**
+     * Až limit řádků z archivu menších než after, od nejnovějšího.
+     */
+    public List<AuditLog> search(AuditLogFilter filter, KeysetCursor after, int limit) {
+        if (!enabled || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<AuditLog> result = new ArrayList<>();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            AuditArchiveSegment segment = segments.get(i);
+            // Segmenty jsou seřazené podle posledního klíče - starší už nic novějšího nemají
+            if (result.size() >= limit && !endsAfter(segment, result.get(limit - 1))) {
+                break;
+            }
+            List<AuditLog> rows = new ArrayList<>();
+            segment.scanNewestFirst(filter, after, limit, rows);
+            result.addAll(rows);
+            result.sort(NEWEST_FIRST);
+            if (result.size() > limit) {
+                result.subList(limit, result.size()).clear();
+            }
+        }
+        return result;
+    }
+
+    @Scheduled(cron = "${app.audit.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Přesune do archivu všechny řádky starší než older-than. Vrací počet archivovaných řádků.
+     */
+    public long archive() {
+        if (!enabled || !archiveLock.tryLock()) {
+            return 0;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(olderThan);
+            completePending();
+            long total = 0;
+            List<AuditLog> rows;
+            do {
+                rows = loadBatch(cutoff);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                complete(writePending(rows));
+                archivedRows.increment(rows.size());
+                total += rows.size();
+            } while (rows.size() == segmentRows);
+            if (total > 0) {
+                logger.info("Archived {} audit rows older than {}", total, cutoff);
+            }
+            return total;
+        } finally {
+            archiveLock.unlock();
+        }
+    }
+
+    // V tabulce zůstávají jen nearchivované řádky (archivované se mažou podle id), takže bez kurzoru
+    private List<AuditLog> loadBatch(LocalDateTime cutoff) {
+        return jdbcTemplate.query(SELECT_SQL + " ORDER BY timestamp, id LIMIT ?", (rs, rowNum) -> {
+            AuditLog log = new AuditLog();
+            log.setId(rs.getLong("id"));
+            log.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            log.setActorUserId(rs.getObject("actor_user_id", Long.class));
+            log.setEntityName(rs.getString("entity_name"));
+            log.setEntityId(rs.getObject("entity_id", Long.class));
+            log.setFieldName(rs.getString("field_name"));
+            log.setOldValue(rs.getString("old_value"));
+            log.setNewValue(rs.getString("new_value"));
+            log.setActionType(rs.getString("action_type"));
+            log.setIpAddress(rs.getString("ip_address"));
+            log.setLogLevel(LogLevel.valueOf(rs.getString("log_level")));
+            return log;
+        }, Timestamp.valueOf(cutoff), segmentRows);
+    }
+
+    private Path writePending(List<AuditLog> rows) {
+        AuditLog last = rows.get(rows.size() - 1);
+        Path file = directory.resolve(String.format("archive-%017d-%020d%s%s",
+                AuditRecordCodec.toEpochMicros(last.getTimestamp()), last.getId(), SEGMENT_SUFFIX, PENDING_SUFFIX));
+        try {
+            AuditArchiveSegment.write(file, rows);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write audit archive segment " + file, e);
+        }
+    }
+
+    // Segment zapsaný před pádem nebo chybou mazání - smazání podle jeho id je idempotentní
+    private void completePending() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX + PENDING_SUFFIX)) {
+            for (Path file : files) {
+                complete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list audit archive directory " + directory, e);
+        }
+    }
+
+    /**
+     * Smaže z audit_log řádky, které segment obsahuje, a zveřejní ho pro search.
+     */
+    private void complete(Path pending) {
+        String name = pending.getFileName().toString();
+        Path file = pending.resolveSibling(name.substring(0, name.length() - PENDING_SUFFIX.length()));
+        try {
+            deleteIds(AuditArchiveSegment.open(pending).ids());
+            Files.move(pending, file, StandardCopyOption.ATOMIC_MOVE);
+            add(AuditArchiveSegment.open(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot complete audit archive segment " + pending, e);
+        }
+    }
+
+    private void deleteIds(long[] ids) {
+        for (int from = 0; from < ids.length; from += DELETE_CHUNK_SIZE) {
+            Object[] chunk = Arrays.stream(ids, from, Math.min(from + DELETE_CHUNK_SIZE, ids.length)).boxed().toArray();
+            jdbcTemplate.update("DELETE FROM audit_log WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.length, "?")) + ")", chunk);
+        }
+    }
+
+    // Zařadí segment podle klíče posledního řádku
+    private void add(AuditArchiveSegment segment) {
+        int index = segments.size();
+        while (index > 0 && SEGMENT_ORDER.compare(segments.get(index - 1), segment) > 0) {
+            index--;
+        }
+        segments.add(index, segment);
+    }
+
+    private static boolean endsAfter(AuditArchiveSegment segment, AuditLog row) {
+        long timestamp = AuditRecordCodec.toEpochMicros(row.getTimestamp());
+        return segment.getLastTimestamp() > timestamp
+                || (segment.getLastTimestamp() == timestamp && segment.getLastId() > row.getId());
+    }
+}
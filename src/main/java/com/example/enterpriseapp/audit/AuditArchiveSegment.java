@@ -0,0 +1,550 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.common.KeysetCursor;
+import com.example.enterpriseapp.dto.AuditLogFilter;
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Neměnný sloupcový segment archivu audit logu.
+ * <p>
+ * Hlavička: int magic, int verze, int počet řádků, klíč (timestamp, id) prvního
+ * a posledního řádku (4× long, čas jako epoch µs UTC - přesnost audit_log.timestamp;
+ * verze 1 ukládala ms), int offsety 11 sloupců + konec.
+ * Řádky jsou seřazené podle (timestamp, id) vzestupně. Čísla se ukládají jako varinty:
+ * timestamp jako rozdíl od předchozího řádku, id a entityId jako zigzag rozdíl.
+ * Sloupce s malou kardinalitou mají slovník a pro každý řádek jen kód (0 = null).
+ * oldValue/newValue jsou prosté řetězce (délka + 1, 0 = null).
+ */
+final class AuditArchiveSegment {
+
+    private static final int MAGIC = 0x41554441; // "AUDA"
+    private static final int VERSION = 2;
+    private static final int VERSION_MILLIS = 1;
+
+    private static final int COL_TIMESTAMP = 0;
+    private static final int COL_ID = 1;
+    private static final int COL_ACTOR = 2;
+    private static final int COL_ENTITY_NAME = 3;
+    private static final int COL_ENTITY_ID = 4;
+    private static final int COL_FIELD_NAME = 5;
+    private static final int COL_OLD_VALUE = 6;
+    private static final int COL_NEW_VALUE = 7;
+    private static final int COL_ACTION_TYPE = 8;
+    private static final int COL_IP_ADDRESS = 9;
+    private static final int COL_LOG_LEVEL = 10;
+    private static final int COLUMNS = 11;
+
+    private static final int HEADER_SIZE = 3 * Integer.BYTES + 4 * Long.BYTES + (COLUMNS + 1) * Integer.BYTES;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final long firstTimestamp;
+    private final long firstId;
+    private final long lastTimestamp;
+    private final long lastId;
+    // Kolik µs je jednotka uloženého času (1000 u segmentů verze 1)
+    private final long timeUnitMicros;
+    private final int[] columnOffsets = new int[COLUMNS + 1];
+
+    private AuditArchiveSegment(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || (buffer.getInt(4) != VERSION && buffer.getInt(4) != VERSION_MILLIS)) {
+            throw new IOException("Not an audit archive segment: " + file);
+        }
+        this.timeUnitMicros = buffer.getInt(4) == VERSION_MILLIS ? 1000 : 1;
+        this.rowCount = buffer.getInt(8);
+        this.firstTimestamp = buffer.getLong(12) * timeUnitMicros;
+        this.firstId = buffer.getLong(20);
+        this.lastTimestamp = buffer.getLong(28) * timeUnitMicros;
+        this.lastId = buffer.getLong(36);
+        for (int i = 0; i <= COLUMNS; i++) {
+            columnOffsets[i] = buffer.getInt(44 + i * Integer.BYTES);
+        }
+        if (columnOffsets[COLUMNS] != buffer.capacity()) {
+            throw new IOException("Truncated audit archive segment: " + file);
+        }
+    }
+
+    static AuditArchiveSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Mapování zůstává platné i po zavření kanálu
+            return new AuditArchiveSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    /** Čas posledního řádku v epoch µs. */
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    long getLastId() {
+        return lastId;
+    }
+
+    long getSizeBytes() {
+        return buffer.capacity();
+    }
+
+    /** Id všech řádků segmentu - podle nich se mažou archivované řádky z audit_log. */
+    long[] ids() {
+        return new Reader(buffer.duplicate()).ids();
+    }
+
+    // --- Zápis ---
+
+    /**
+     * Zapíše řádky (seřazené podle (timestamp, id)) do nového souboru. Soubor se objeví
+     * až celý (zápis do .tmp a atomický přesun).
+     */
+    static void write(Path file, List<AuditLog> rows) throws IOException {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Archive segment must not be empty");
+        }
+        ByteArrayOutputStream[] columns = new ByteArrayOutputStream[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = new ByteArrayOutputStream();
+        }
+        Map<Long, Integer> actors = new LinkedHashMap<>();
+        Map<String, Integer> entityNames = new LinkedHashMap<>();
+        Map<String, Integer> fieldNames = new LinkedHashMap<>();
+        Map<String, Integer> actionTypes = new LinkedHashMap<>();
+        Map<String, Integer> ipAddresses = new LinkedHashMap<>();
+        Map<String, Integer> logLevels = new LinkedHashMap<>();
+        ByteArrayOutputStream[] codes = new ByteArrayOutputStream[COLUMNS];
+        for (int column : new int[]{COL_ACTOR, COL_ENTITY_NAME, COL_FIELD_NAME, COL_ACTION_TYPE, COL_IP_ADDRESS, COL_LOG_LEVEL}) {
+            codes[column] = new ByteArrayOutputStream();
+        }
+
+        long firstTimestamp = AuditRecordCodec.toEpochMicros(rows.get(0).getTimestamp());
+        long previousTimestamp = firstTimestamp;
+        long previousId = 0;
+        long previousEntityId = 0;
+        for (AuditLog row : rows) {
+            long timestamp = AuditRecordCodec.toEpochMicros(row.getTimestamp());
+            if (timestamp < previousTimestamp) {
+                throw new IllegalArgumentException("Archive rows must be sorted by timestamp");
+            }
+            writeVarLong(columns[COL_TIMESTAMP], timestamp - previousTimestamp);
+            previousTimestamp = timestamp;
+            writeVarLong(columns[COL_ID], zigzag(row.getId() - previousId));
+            previousId = row.getId();
+            if (row.getEntityId() == null) {
+                writeVarLong(columns[COL_ENTITY_ID], 0);
+            } else {
+                writeVarLong(columns[COL_ENTITY_ID], zigzag(row.getEntityId() - previousEntityId) + 1);
+                previousEntityId = row.getEntityId();
+            }
+            writeCode(codes[COL_ACTOR], actors, row.getActorUserId());
+            writeCode(codes[COL_ENTITY_NAME], entityNames, row.getEntityName());
+            writeCode(codes[COL_FIELD_NAME], fieldNames, row.getFieldName());
+            writeCode(codes[COL_ACTION_TYPE], actionTypes, row.getActionType());
+            writeCode(codes[COL_IP_ADDRESS], ipAddresses, row.getIpAddress());
+            writeCode(codes[COL_LOG_LEVEL], logLevels, row.getLogLevel() != null ? row.getLogLevel().name() : null);
+            writeString(columns[COL_OLD_VALUE], row.getOldValue());
+            writeString(columns[COL_NEW_VALUE], row.getNewValue());
+        }
+
+        writeVarLong(columns[COL_ACTOR], actors.size());
+        for (Long actor : actors.keySet()) {
+            writeVarLong(columns[COL_ACTOR], zigzag(actor));
+        }
+        writeStringDictionary(columns[COL_ENTITY_NAME], entityNames);
+        writeStringDictionary(columns[COL_FIELD_NAME], fieldNames);
+        writeStringDictionary(columns[COL_ACTION_TYPE], actionTypes);
+        writeStringDictionary(columns[COL_IP_ADDRESS], ipAddresses);
+        writeStringDictionary(columns[COL_LOG_LEVEL], logLevels);
+        for (int i = 0; i < COLUMNS; i++) {
+            if (codes[i] != null) {
+                codes[i].writeTo(columns[i]);
+            }
+        }
+
+        int size = HEADER_SIZE;
+        for (ByteArrayOutputStream column : columns) {
+            size += column.size();
+        }
+        AuditLog last = rows.get(rows.size() - 1);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(rows.size())
+                .putLong(firstTimestamp)
+                .putLong(rows.get(0).getId())
+                .putLong(AuditRecordCodec.toEpochMicros(last.getTimestamp()))
+                .putLong(last.getId());
+        int offset = HEADER_SIZE;
+        for (ByteArrayOutputStream column : columns) {
+            header.putInt(offset);
+            offset += column.size();
+        }
+        header.putInt(size);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            header.flip();
+            writeFully(channel, header);
+            for (ByteArrayOutputStream column : columns) {
+                writeFully(channel, ByteBuffer.wrap(column.toByteArray()));
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // --- Čtení ---
+
+    /**
+     * Přidá do out řádky vyhovující filtru, menší než after, od nejnovějšího,
+     * dokud out nemá limit prvků.
+     */
+    void scanNewestFirst(AuditLogFilter filter, KeysetCursor after, int limit, List<AuditLog> out) {
+        if (out.size() >= limit || !overlaps(filter, after)) {
+            return;
+        }
+        Reader reader = new Reader(buffer.duplicate());
+
+        // Hodnota filtru, která ve slovníku není, znamená, že segment nic neobsahuje
+        Integer actorCode = reader.actorCode(filter.getActorUserId());
+        Integer actionCode = reader.stringCode(COL_ACTION_TYPE, filter.getActionType());
+        Integer ipCode = reader.stringCode(COL_IP_ADDRESS, filter.getIpAddress());
+        Integer levelCode = reader.stringCode(COL_LOG_LEVEL, filter.getLogLevel() != null ? filter.getLogLevel().name() : null);
+        if (actorCode == null || actionCode == null || ipCode == null || levelCode == null) {
+            return;
+        }
+
+        long[] timestamps = reader.timestamps();
+        long[] ids = reader.ids();
+        long fromMicros = filter.getFrom() != null ? AuditRecordCodec.toEpochMicros(filter.getFrom()) : Long.MIN_VALUE;
+        long toMicros = filter.getTo() != null ? AuditRecordCodec.toEpochMicros(filter.getTo()) : Long.MAX_VALUE;
+        long afterMicros = after != null ? AuditRecordCodec.toEpochMicros(after.getTimestamp()) : Long.MAX_VALUE;
+
+        // Řádky jsou seřazené podle času - začneme těsně pod horní hranicí
+        int row = upperBound(timestamps, Math.min(toMicros - 1, afterMicros)) - 1;
+        for (; row >= 0 && out.size() < limit; row--) {
+            long timestamp = timestamps[row];
+            if (timestamp < fromMicros) {
+                break;
+            }
+            if (after != null && timestamp == afterMicros && ids[row] >= after.getId()) {
+                continue;
+            }
+            if (!reader.codeMatches(COL_ACTOR, row, actorCode)
+                    || !reader.codeMatches(COL_ACTION_TYPE, row, actionCode)
+                    || !reader.codeMatches(COL_IP_ADDRESS, row, ipCode)
+                    || !reader.codeMatches(COL_LOG_LEVEL, row, levelCode)
+                    || (filter.getEntityId() != null && !filter.getEntityId().equals(reader.entityId(row)))) {
+                continue;
+            }
+            out.add(reader.materialize(row, timestamp, ids[row]));
+        }
+    }
+
+    private boolean overlaps(AuditLogFilter filter, KeysetCursor after) {
+        if (filter.getFrom() != null && lastTimestamp < AuditRecordCodec.toEpochMicros(filter.getFrom())) {
+            return false;
+        }
+        if (filter.getTo() != null && firstTimestamp >= AuditRecordCodec.toEpochMicros(filter.getTo())) {
+            return false;
+        }
+        if (after != null) {
+            long afterMicros = AuditRecordCodec.toEpochMicros(after.getTimestamp());
+            return firstTimestamp < afterMicros || (firstTimestamp == afterMicros && firstId < after.getId());
+        }
+        return true;
+    }
+
+    // první index s hodnotou > key
+    private static int upperBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Dekódované sloupce jednoho průchodu. Sloupce se dekódují líně, až když jsou potřeba.
+     */
+    private final class Reader {
+        private final ByteBuffer data;
+        private final Map<Integer, int[]> codes = new HashMap<>();
+        private final Map<Integer, String[]> dictionaries = new HashMap<>();
+        private long[] actors;
+        private long[] entityIds;
+        private boolean[] entityIdNull;
+        private int[] oldValueOffsets;
+        private int[] newValueOffsets;
+
+        private Reader(ByteBuffer data) {
+            this.data = data;
+        }
+
+        long[] timestamps() {
+            long[] values = new long[rowCount];
+            data.position(columnOffsets[COL_TIMESTAMP]);
+            long timestamp = firstTimestamp;
+            for (int i = 0; i < rowCount; i++) {
+                timestamp += readVarLong(data) * timeUnitMicros;
+                values[i] = timestamp;
+            }
+            return values;
+        }
+
+        long[] ids() {
+            long[] values = new long[rowCount];
+            data.position(columnOffsets[COL_ID]);
+            long id = 0;
+            for (int i = 0; i < rowCount; i++) {
+                id += unzigzag(readVarLong(data));
+                values[i] = id;
+            }
+            return values;
+        }
+
+        Long entityId(int row) {
+            if (entityIds == null) {
+                entityIds = new long[rowCount];
+                entityIdNull = new boolean[rowCount];
+                data.position(columnOffsets[COL_ENTITY_ID]);
+                long previous = 0;
+                for (int i = 0; i < rowCount; i++) {
+                    long value = readVarLong(data);
+                    if (value == 0) {
+                        entityIdNull[i] = true;
+                    } else {
+                        previous += unzigzag(value - 1);
+                        entityIds[i] = previous;
+                    }
+                }
+            }
+            return entityIdNull[row] ? null : entityIds[row];
+        }
+
+        /** Kód hodnoty ve slovníku; -1 = bez filtru, null = hodnota v segmentu není. */
+        Integer actorCode(Long actor) {
+            if (actor == null) {
+                return -1;
+            }
+            loadActors();
+            for (int i = 0; i < actors.length; i++) {
+                if (actors[i] == actor) {
+                    return i + 1;
+                }
+            }
+            return null;
+        }
+
+        Integer stringCode(int column, String value) {
+            if (value == null) {
+                return -1;
+            }
+            String[] dictionary = dictionary(column);
+            for (int i = 0; i < dictionary.length; i++) {
+                if (value.equals(dictionary[i])) {
+                    return i + 1;
+                }
+            }
+            return null;
+        }
+
+        boolean codeMatches(int column, int row, int code) {
+            return code < 0 || codes(column)[row] == code;
+        }
+
+        AuditLog materialize(int row, long timestamp, long id) {
+            AuditLog log = new AuditLog();
+            log.setId(id);
+            log.setTimestamp(AuditRecordCodec.fromEpochMicros(timestamp));
+            int actor = codes(COL_ACTOR)[row];
+            log.setActorUserId(actor == 0 ? null : actors[actor - 1]);
+            log.setEntityName(dictionaryValue(COL_ENTITY_NAME, row));
+            log.setEntityId(entityId(row));
+            log.setFieldName(dictionaryValue(COL_FIELD_NAME, row));
+            if (oldValueOffsets == null) {
+                oldValueOffsets = stringOffsets(COL_OLD_VALUE);
+                newValueOffsets = stringOffsets(COL_NEW_VALUE);
+            }
+            log.setOldValue(readString(oldValueOffsets[row]));
+            log.setNewValue(readString(newValueOffsets[row]));
+            log.setActionType(dictionaryValue(COL_ACTION_TYPE, row));
+            log.setIpAddress(dictionaryValue(COL_IP_ADDRESS, row));
+            String level = dictionaryValue(COL_LOG_LEVEL, row);
+            log.setLogLevel(level != null ? LogLevel.valueOf(level) : null);
+            return log;
+        }
+
+        private String dictionaryValue(int column, int row) {
+            int code = codes(column)[row];
+            return code == 0 ? null : dictionary(column)[code - 1];
+        }
+
+        private void loadActors() {
+            if (actors == null) {
+                data.position(columnOffsets[COL_ACTOR]);
+                actors = new long[(int) readVarLong(data)];
+                for (int i = 0; i < actors.length; i++) {
+                    actors[i] = unzigzag(readVarLong(data));
+                }
+                codes.put(COL_ACTOR, readCodes(data.position()));
+            }
+        }
+
+        private String[] dictionary(int column) {
+            String[] dictionary = dictionaries.get(column);
+            if (dictionary == null) {
+                data.position(columnOffsets[column]);
+                dictionary = new String[(int) readVarLong(data)];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = readString(data.position());
+                }
+                dictionaries.put(column, dictionary);
+                codes.put(column, readCodes(data.position()));
+            }
+            return dictionary;
+        }
+
+        private int[] codes(int column) {
+            if (!codes.containsKey(column)) {
+                if (column == COL_ACTOR) {
+                    loadActors();
+                } else {
+                    dictionary(column);
+                }
+            }
+            return codes.get(column);
+        }
+
+        private int[] readCodes(int position) {
+            data.position(position);
+            int[] values = new int[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = (int) readVarLong(data);
+            }
+            return values;
+        }
+
+        private int[] stringOffsets(int column) {
+            int[] offsets = new int[rowCount];
+            data.position(columnOffsets[column]);
+            for (int i = 0; i < rowCount; i++) {
+                offsets[i] = data.position();
+                long length = readVarLong(data);
+                if (length > 0) {
+                    data.position(data.position() + (int) length - 1);
+                }
+            }
+            return offsets;
+        }
+
+        // Přečte řetězec na pozici a nechá data.position() za ním
+        private String readString(int position) {
+            data.position(position);
+            int length = (int) readVarLong(data) - 1;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            data.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // --- Kódování ---
+
+    private static <T> void writeCode(ByteArrayOutputStream out, Map<T, Integer> dictionary, T value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        Integer code = dictionary.computeIfAbsent(value, key -> dictionary.size() + 1);
+        writeVarLong(out, code);
+    }
+
+    private static void writeStringDictionary(ByteArrayOutputStream out, Map<String, Integer> dictionary) {
+        writeVarLong(out, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            writeString(out, Objects.requireNonNull(value));
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+}
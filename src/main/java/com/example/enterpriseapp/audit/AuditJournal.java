@@ -0,0 +1,425 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.config.ThreadingConfig;
+import com.example.enterpriseapp.entity.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only žurnál auditních událostí v paměťově mapovaných segmentech pevné velikosti.
+ * <p>
+ * Request vlákno jen zapíše záznam do mapovaného souboru; vlákno audit-journal-replayer
+ * ho následně přepíše dávkou do audit_log a posune checkpoint. Po pádu aplikace se
+ * při startu pokračuje od checkpointu (doručení do DB je at-least-once).
+ * <p>
+ * Výpadek DB se zkouší znovu donekonečna. Trvalá chyba dávky (porušení omezení, příliš
+ * dlouhá hodnota) přepne replay na jednotlivé záznamy; záznam, který trvale selže
+ * max-attempts krát, se přesune do souboru dead-letter (stejné kódování jako segmenty)
+ * a checkpoint jde dál, aby neblokoval vše za sebou.
+ */
+@Component
+public class AuditJournal implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditJournal.class);
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letter" + SEGMENT_SUFFIX;
+
+    private final AuditJdbcWriter writer;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final int maxAttempts;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Counter appended;
+    private final Counter replayed;
+    private final Counter deadLettered;
+
+    private final ThreadFactory threadFactory;
+
+    private volatile Segment active;
+    private volatile boolean running;
+    private Thread replayerThread;
+
+    // Stav čtenáře (pouze vlákno replayeru)
+    private long checkpointSegment;
+    private int checkpointOffset;
+    // Po trvalé chybě dávky se až do jejího konce zapisuje po jednom záznamu
+    private long isolateUntilSegment = -1;
+    private int isolateUntilOffset;
+    private int attempts;
+
+    public AuditJournal(AuditJdbcWriter writer,
+                        MeterRegistry meterRegistry,
+                        @Qualifier(ThreadingConfig.AUDIT_THREAD_FACTORY) ThreadFactory threadFactory,
+                        @Value("${app.audit.journal.enabled:false}") boolean enabled,
+                        @Value("${app.audit.journal.dir:audit-journal}") Path directory,
+                        @Value("${app.audit.journal.segment-size:67108864}") int segmentSize,
+                        @Value("${app.audit.journal.batch-size:500}") int batchSize,
+                        @Value("${app.audit.journal.poll-interval:50ms}") Duration pollInterval,
+                        @Value("${app.audit.journal.max-attempts:5}") int maxAttempts) {
+        this.writer = writer;
+        this.threadFactory = threadFactory;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.maxAttempts = maxAttempts;
+
+        this.appended = Counter.builder("audit.journal.appended").register(meterRegistry);
+        this.replayed = Counter.builder("audit.journal.replayed").register(meterRegistry);
+        this.deadLettered = Counter.builder("audit.journal.dead-lettered").register(meterRegistry);
+        Gauge.builder("audit.journal.segments", segments, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Zapíše událost do žurnálu. Vrací false, pokud žurnál neběží nebo se záznam
+     * nevejde do segmentu - volající pak použije jinou cestu.
+     */
+    public boolean append(AuditLog log) {
+        if (!running) {
+            return false;
+        }
+        AuditRecordCodec.Encoded encoded = AuditRecordCodec.prepare(log);
+        int recordSize = encoded.recordSize();
+        if (recordSize + AuditRecordCodec.HEADER_SIZE > segmentSize) {
+            return false;
+        }
+        appendLock.lock();
+        try {
+            Segment segment = active;
+            int position = segment.published;
+            // Za posledním záznamem musí zůstat místo na nulovou hlavičku (konec dat)
+            if (position + recordSize + AuditRecordCodec.HEADER_SIZE > segmentSize) {
+                segment = roll();
+                position = 0;
+            }
+            AuditRecordCodec.write(segment.buffer, position, encoded);
+            segment.published = position + recordSize;
+        } finally {
+            appendLock.unlock();
+        }
+        appended.increment();
+        return true;
+    }
+
+    private Segment roll() {
+        Segment previous = active;
+        active = createSegment(previous.id + 1);
+        previous.sealed = true;
+        return active;
+    }
+
+    // --- Replayer ---
+
+    private void replayLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            long segmentId = checkpointSegment;
+            int start = checkpointOffset;
+            int offset = start;
+            try {
+                offset = readBatch(batch, isolating() ? 1 : batchSize);
+                if (batch.isEmpty()) {
+                    if (!advanceSegment()) {
+                        sleep(pollIntervalMillis);
+                    }
+                    continue;
+                }
+                writer.insertBatch(batch);
+                replayed.increment(batch.size());
+                writeCheckpoint(segmentId, offset);
+                attempts = 0;
+            } catch (RuntimeException e) {
+                if (!isPermanent(e)) {
+                    // DB nedostupná - checkpoint se neposunul, stejnou dávku zkusíme znovu
+                    logger.warn("Audit journal replay failed, retrying: {}", e.getMessage());
+                    sleep(Math.max(pollIntervalMillis, 1000L));
+                } else if (!isolating() && batch.size() > 1) {
+                    // Nevíme, který záznam dávku shodil - do konce dávky po jednom
+                    logger.warn("Audit journal batch rejected, replaying it record by record: {}", e.getMessage());
+                    isolateUntilSegment = segmentId;
+                    isolateUntilOffset = offset;
+                    attempts = 0;
+                } else if (++attempts >= maxAttempts) {
+                    deadLetter(segmentId, start, offset, e);
+                } else {
+                    logger.warn("Audit journal record {}:{} rejected (attempt {}/{}): {}",
+                            segmentId, start, attempts, maxAttempts, e.getMessage());
+                    sleep(pollIntervalMillis);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean isolating() {
+        return checkpointSegment < isolateUntilSegment
+                || (checkpointSegment == isolateUntilSegment && checkpointOffset < isolateUntilOffset);
+    }
+
+    // Výpadek spojení je v Springu také NonTransient, ale opakování ho vyřeší; neznámé chyby bereme jako dočasné
+    private static boolean isPermanent(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    /**
+     * Přesune záznam [start, end) do dead-letter souboru a posune za něj checkpoint.
+     */
+    private void deadLetter(long segmentId, int start, int end, RuntimeException cause) {
+        Segment segment = segments.get(segmentId);
+        try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(segment.buffer.slice(start, end - start));
+            channel.force(false);
+        } catch (IOException e) {
+            // Bez zápisu do dead-letter záznam nezahodíme, zkusí se znovu
+            logger.error("Cannot write audit journal dead-letter record {}:{}", segmentId, start, e);
+            sleep(Math.max(pollIntervalMillis, 1000L));
+            return;
+        }
+        logger.error("Audit journal record {}:{} moved to {} after {} attempts", segmentId, start, DEAD_LETTER_FILE, attempts, cause);
+        deadLettered.increment();
+        attempts = 0;
+        try {
+            writeCheckpoint(segmentId, end);
+        } catch (UncheckedIOException e) {
+            // Záznam se po dalším pokusu zapíše do dead-letter znovu (at-least-once)
+            logger.error("Cannot advance audit journal checkpoint past dead-letter record {}:{}", segmentId, start, e);
+        }
+    }
+
+    /**
+     * Načte dávku od checkpointu v rámci jednoho segmentu, vrací offset za posledním záznamem.
+     */
+    private int readBatch(List<AuditLog> batch, int maxRecords) {
+        Segment segment = segments.get(checkpointSegment);
+        if (segment == null) {
+            return checkpointOffset;
+        }
+        int limit = segment == active ? segment.published : segmentSize;
+        int position = checkpointOffset;
+        while (batch.size() < maxRecords) {
+            int size = AuditRecordCodec.validRecordSize(segment.buffer, position, limit);
+            if (size < 0) {
+                break;
+            }
+            batch.add(AuditRecordCodec.read(segment.buffer, position));
+            position += size;
+        }
+        return position;
+    }
+
+    /**
+     * Pokud je aktuální segment dočtený a uzavřený, přejde na další a starý smaže.
+     */
+    private boolean advanceSegment() {
+        Segment current = segments.get(checkpointSegment);
+        if (current != null) {
+            if (!current.sealed) {
+                return false;
+            }
+            // Mezi čtením a uzavřením segmentu mohl přibýt ještě záznam
+            if (AuditRecordCodec.validRecordSize(current.buffer, checkpointOffset, segmentSize) > 0) {
+                return true;
+            }
+        }
+        Long next = segments.higherKey(checkpointSegment);
+        if (next == null) {
+            return false;
+        }
+        writeCheckpoint(next, 0);
+        if (current != null) {
+            deleteSegment(current);
+        }
+        return true;
+    }
+
+    // --- Soubory ---
+
+    private Segment createSegment(long id) {
+        Segment segment = openSegment(id);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment openSegment(long id) {
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapování zůstává platné i po zavření kanálu
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            return new Segment(id, path, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit journal segment " + path, e);
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        segments.remove(segment.id);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            logger.warn("Cannot delete replayed audit journal segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    private void writeCheckpoint(long segmentId, int offset) {
+        checkpointSegment = segmentId;
+        checkpointOffset = offset;
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.writeString(temp, segmentId + " " + offset, StandardCharsets.US_ASCII);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write audit journal checkpoint", e);
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .forEach(id -> {
+                        Segment segment = openSegment(id);
+                        // Segmenty z minulého běhu se už jen dočítají
+                        segment.sealed = true;
+                        segments.put(id, segment);
+                    });
+        }
+
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            String[] parts = Files.readString(checkpoint, StandardCharsets.US_ASCII).trim().split(" ");
+            checkpointSegment = Long.parseLong(parts[0]);
+            checkpointOffset = Integer.parseInt(parts[1]);
+        } else {
+            checkpointSegment = segments.isEmpty() ? 0 : segments.firstKey();
+            checkpointOffset = 0;
+        }
+        if (!segments.containsKey(checkpointSegment)) {
+            checkpointOffset = 0;
+        }
+        // Segmenty starší než checkpoint jsou už celé v databázi
+        segments.headMap(checkpointSegment).values().forEach(this::deleteSegment);
+
+        long nextId = segments.isEmpty() ? Math.max(checkpointSegment, 0) : segments.lastKey() + 1;
+        active = createSegment(nextId);
+        if (segments.size() > 1) {
+            logger.info("Replaying {} audit journal segment(s) from checkpoint {}:{}", segments.size() - 1, checkpointSegment, checkpointOffset);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- SmartLifecycle ---
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit journal in " + directory, e);
+        }
+        running = true;
+        replayerThread = threadFactory.newThread(this::replayLoop);
+        replayerThread.setName("audit-journal-replayer");
+        replayerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            // Nové zápisy půjdou mimo žurnál, co už v něm je, doručí replay po dalším startu
+            running = false;
+            active.buffer.force();
+        } finally {
+            appendLock.unlock();
+        }
+        replayerThread.interrupt();
+        try {
+            replayerThread.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private volatile int published;
+        private volatile boolean sealed;
+
+        private Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
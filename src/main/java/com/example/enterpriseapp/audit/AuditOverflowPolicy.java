@@ -0,0 +1,13 @@
+package com.example.enterpriseapp.audit;
+
+/**
+ * Chování při plné frontě auditních událostí.
+ */
+public enum AuditOverflowPolicy {
+    /** Volající vlákno čeká, dokud se ve frontě neuvolní místo. */
+    BLOCK,
+    /** Událost se zahodí a započítá do metriky audit.events.dropped. */
+    DROP,
+    /** Událost se zapíše synchronně přímo z volajícího vlákna, nic se neztratí. */
+    SPILL
+}
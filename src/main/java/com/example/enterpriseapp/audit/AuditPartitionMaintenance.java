@@ -0,0 +1,205 @@
+package com.example.enterpriseapp.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Údržba měsíčních oddílů tabulky audit_log (MySQL / MariaDB, RANGE COLUMNS(timestamp)).
+ * <p>
+ * Dopředu zakládá oddíly na app.audit.partitioning.months-ahead měsíců, expirované
+ * oddíly zahazuje přes DROP PARTITION (bez mazání po řádcích). Řádky actionType
+ * z app.audit.retention.rollup-actions se před odstraněním sečtou do
+ * audit_log_daily_summary. Třídy s kratší dobou uchování se mažou po dávkách
+ * jen v rámci daného oddílu.
+ */
+@Component
+public class AuditPartitionMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditPartitionMaintenance.class);
+
+    private static final String CATCH_ALL = "pmax";
+    private static final Pattern PARTITION_NAME = Pattern.compile("p\\d{6}");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditRetentionPolicy retentionPolicy;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int deleteChunkSize;
+    private final List<String> rollupActions;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    public AuditPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                     AuditRetentionPolicy retentionPolicy,
+                                     @Value("${app.audit.partitioning.enabled:false}") boolean enabled,
+                                     @Value("${app.audit.partitioning.months-ahead:3}") int monthsAhead,
+                                     @Value("${app.audit.retention.delete-chunk-size:10000}") int deleteChunkSize,
+                                     @Value("${app.audit.retention.rollup-actions:ACCESS}") List<String> rollupActions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionPolicy = retentionPolicy;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.deleteChunkSize = deleteChunkSize;
+        this.rollupActions = rollupActions;
+    }
+
+    @Scheduled(cron = "${app.audit.partitioning.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    /**
+     * Jeden průchod údržby. Vrací false, pokud audit_log není rozdělená na oddíly.
+     */
+    public boolean run() {
+        if (!runLock.tryLock()) {
+            return true;
+        }
+        try {
+            List<Partition> partitions = loadPartitions();
+            if (partitions.isEmpty()) {
+                logger.warn("audit_log is not partitioned, skipping partition maintenance");
+                return false;
+            }
+            createFuturePartitions(partitions);
+            applyRetention(partitions, LocalDateTime.now());
+            return true;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private List<Partition> loadPartitions() {
+        return jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_log' AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> new Partition(rs.getString(1), parseBound(rs.getString(2))));
+    }
+
+    private void createFuturePartitions(List<Partition> partitions) {
+        boolean hasCatchAll = partitions.stream().anyMatch(p -> CATCH_ALL.equals(p.name));
+        LocalDateTime highest = partitions.stream()
+                .map(p -> p.upperBound)
+                .filter(bound -> bound != null)
+                .max(LocalDateTime::compareTo)
+                .orElse(YearMonth.now().atDay(1).atStartOfDay());
+
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(highest); !month.isAfter(last); month = month.plusMonths(1)) {
+            LocalDateTime upper = month.plusMonths(1).atDay(1).atStartOfDay();
+            definitions.add("PARTITION p" + month.format(PARTITION_SUFFIX) + " VALUES LESS THAN ('" + upper.format(BOUND) + "')");
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        if (hasCatchAll) {
+            // pmax je prázdný, reorganizace je levná
+            definitions.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE)");
+            jdbcTemplate.execute("ALTER TABLE audit_log REORGANIZE PARTITION " + CATCH_ALL + " INTO (" + String.join(", ", definitions) + ")");
+        } else {
+            jdbcTemplate.execute("ALTER TABLE audit_log ADD PARTITION (" + String.join(", ", definitions) + ")");
+        }
+        logger.info("Created {} audit_log partition(s) up to {}", definitions.size() - (hasCatchAll ? 1 : 0), last);
+    }
+
+    private void applyRetention(List<Partition> partitions, LocalDateTime now) {
+        int maxDays = retentionPolicy.maxRetentionDays();
+        for (Partition partition : partitions) {
+            if (partition.upperBound == null || !PARTITION_NAME.matcher(partition.name).matches()) {
+                continue;
+            }
+            long ageDays = Duration.between(partition.upperBound, now).toDays();
+            if (ageDays < 0) {
+                continue;
+            }
+            if (ageDays >= maxDays) {
+                rollup(partition, null, List.of());
+                jdbcTemplate.execute("ALTER TABLE audit_log DROP PARTITION " + partition.name);
+                logger.info("Dropped audit_log partition {} (older than {} days)", partition.name, maxDays);
+                continue;
+            }
+            List<Object> params = new ArrayList<>();
+            String expired = retentionPolicy.expiredCondition(ageDays, params);
+            if (expired != null) {
+                rollup(partition, expired, params);
+                purge(partition, expired, params);
+            }
+        }
+    }
+
+    private void rollup(Partition partition, String condition, List<Object> conditionParams) {
+        if (rollupActions.isEmpty()) {
+            return;
+        }
+        List<Object> params = new ArrayList<>(rollupActions);
+        params.addAll(conditionParams);
+        jdbcTemplate.update(rollupSql("audit_log PARTITION (" + partition.name + ")", rollupActions.size(), condition),
+                params.toArray());
+    }
+
+    /**
+     * Idempotentní - den leží celý v jednom oddílu. Opakovaný běh po částečném smazání
+     * (purge, předchozí běh spadl) napočítá méně řádků, proto se uložený počet jen zvyšuje.
+     */
+    static String rollupSql(String source, int actionCount, String condition) {
+        return "INSERT INTO audit_log_daily_summary (day, action_type, entity_name, log_level, event_count) "
+                + "SELECT DATE(timestamp), action_type, entity_name, log_level, COUNT(*) "
+                + "FROM " + source + " "
+                + "WHERE action_type IN (" + String.join(", ", Collections.nCopies(actionCount, "?")) + ")"
+                + (condition != null ? " AND " + condition : "")
+                + " GROUP BY DATE(timestamp), action_type, entity_name, log_level "
+                + "ON DUPLICATE KEY UPDATE event_count = GREATEST(event_count, VALUES(event_count))";
+    }
+
+    private void purge(Partition partition, String condition, List<Object> conditionParams) {
+        List<Object> params = new ArrayList<>(conditionParams);
+        params.add(deleteChunkSize);
+        String sql = "DELETE FROM audit_log PARTITION (" + partition.name + ") WHERE " + condition + " LIMIT ?";
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, params.toArray());
+            total += deleted;
+        } while (deleted >= deleteChunkSize);
+        if (total > 0) {
+            logger.info("Purged {} expired audit rows from partition {}", total, partition.name);
+        }
+    }
+
+    private static LocalDateTime parseBound(String description) {
+        if (description == null || description.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        String value = description.replace("'", "").trim();
+        return LocalDateTime.parse(value.length() == 10 ? value + " 00:00:00" : value, BOUND);
+    }
+
+    private static final class Partition {
+        private final String name;
+        private final LocalDateTime upperBound;
+
+        private Partition(String name, LocalDateTime upperBound) {
+            this.name = name;
+            this.upperBound = upperBound;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.config.ThreadingConfig;
+import com.example.enterpriseapp.entity.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Neblokující auditní pipeline: omezená fronta v paměti, kterou vyprazdňuje
+ * jedno vlákno a zapisuje dávky podle velikosti nebo času. Při vypnutí
+ * aplikace se fronta dopíše do databáze.
+ * <p>
+ * Dávka, kterou se nepodaří zapsat, se opakuje s rostoucí pauzou, dokud se to nepovede -
+ * mezitím se fronta plní a při zaplnění platí overflow-policy. Při vypínání se zápis
+ * zkouší nejdéle app.audit.async.shutdown-timeout, teprve potom se zbytek zahodí
+ * (metrika audit.events.failed).
+ */
+@Component
+public class AuditPipeline implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditPipeline.class);
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final AuditJdbcWriter writer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final long shutdownTimeoutNanos;
+    private final BlockingQueue<AuditLog> queue;
+
+    private final Counter droppedEvents;
+    private final Counter spilledEvents;
+    private final Counter failedEvents;
+    private final DistributionSummary batchSizes;
+    private final Timer flushLatency;
+    private final ThreadFactory threadFactory;
+
+    private volatile boolean running;
+    // Po stop(): okamžik (nanoTime), po kterém se nezapsané dávky vzdávají
+    private volatile long giveUpAt;
+    private Thread writerThread;
+
+    public AuditPipeline(AuditJdbcWriter writer,
+                         MeterRegistry meterRegistry,
+                         @Qualifier(ThreadingConfig.AUDIT_THREAD_FACTORY) ThreadFactory threadFactory,
+                         @Value("${app.audit.async.enabled:true}") boolean enabled,
+                         @Value("${app.audit.async.queue-capacity:10000}") int queueCapacity,
+                         @Value("${app.audit.async.batch-size:500}") int batchSize,
+                         @Value("${app.audit.async.flush-interval:200ms}") Duration flushInterval,
+                         @Value("${app.audit.async.overflow-policy:BLOCK}") AuditOverflowPolicy overflowPolicy,
+                         @Value("${app.audit.async.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.writer = writer;
+        this.threadFactory = threadFactory;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.shutdownTimeoutNanos = shutdownTimeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("audit.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.droppedEvents = Counter.builder("audit.events.dropped").register(meterRegistry);
+        this.spilledEvents = Counter.builder("audit.events.spilled").register(meterRegistry);
+        this.failedEvents = Counter.builder("audit.events.failed").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("audit.batch.size").register(meterRegistry);
+        this.flushLatency = Timer.builder("audit.flush.latency").publishPercentiles(0.5, 0.99).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Zařadí událost do fronty. Při plné frontě se řídí app.audit.async.overflow-policy.
+     */
+    public void submit(AuditLog log) {
+        if (!running) {
+            // Pipeline neběží (ještě nestartovala nebo už se vypíná) -> zapíšeme hned
+            writer.insertBatch(List.of(log));
+            return;
+        }
+        if (queue.offer(log)) {
+            if (!running && queue.remove(log)) {
+                // Souběh s vypínáním, writer už frontu nevybere
+                writer.insertBatch(List.of(log));
+            }
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(log);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    spill(log);
+                }
+            }
+            case DROP -> droppedEvents.increment();
+            case SPILL -> spill(log);
+        }
+    }
+
+    private void spill(AuditLog log) {
+        spilledEvents.increment();
+        writer.insertBatch(List.of(log));
+    }
+
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        break;
+                    }
+                    AuditLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Přerušení = pokyn k ukončení, zbytek fronty ještě dopíšeme
+                requestStop();
+                queue.drainTo(batch);
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                writer.insertBatch(batch);
+                flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (!running && System.nanoTime() - giveUpAt >= 0) {
+                    failedEvents.increment(batch.size());
+                    logger.error("Dropping {} audit events, database still failing at shutdown after {} attempt(s): {}",
+                            batch.size(), attempt, e.getMessage());
+                    return;
+                }
+                logger.warn("Audit batch flush failed (attempt {}), retrying in {} ms: {}", attempt, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    // Jako v drainLoop - ukončení; příznak neobnovujeme, další pauzy by jinak hned skončily
+                    requestStop();
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void requestStop() {
+        if (running) {
+            giveUpAt = System.nanoTime() + shutdownTimeoutNanos;
+            running = false;
+        }
+    }
+
+    // --- SmartLifecycle ---
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writerThread = threadFactory.newThread(this::drainLoop);
+        writerThread.setName("audit-writer");
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        requestStop();
+        try {
+            // Writer dopisuje frontu a opakuje neúspěšnou dávku nejdéle do giveUpAt
+            writerThread.join(TimeUnit.NANOSECONDS.toMillis(shutdownTimeoutNanos) + Duration.ofSeconds(5).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            // Writer nestihl frontu vyprázdnit, dopíšeme ji z tohoto vlákna
+            List<AuditLog> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            flush(rest);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Zastavuje se až po webovém serveru, aby se stihly zapsat události posledních požadavků
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * Binární kódování AuditLog pro žurnál.
+ * <p>
+ * Záznam: [int délka payloadu][int CRC32C payloadu][payload].
+ * Payload: long timestamp (epoch ms, UTC), byte příznaky null hodnot,
+ * [long actorUserId], [long entityId], byte logLevel, 6× řetězec (int délka / -1 = null, UTF-8).
+ * Délka 0 označuje konec zapsaných dat.
+ */
+final class AuditRecordCodec {
+
+    static final int HEADER_SIZE = 8;
+
+    private static final byte HAS_ACTOR = 1;
+    private static final byte HAS_ENTITY_ID = 2;
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private AuditRecordCodec() {
+    }
+
+    /**
+     * Předpřipravený záznam - řetězce už jsou převedené na bajty, známe přesnou velikost.
+     */
+    static final class Encoded {
+        private final AuditLog log;
+        private final byte[][] strings;
+        private final int payloadSize;
+
+        private Encoded(AuditLog log, byte[][] strings, int payloadSize) {
+            this.log = log;
+            this.strings = strings;
+            this.payloadSize = payloadSize;
+        }
+
+        int recordSize() {
+            return HEADER_SIZE + payloadSize;
+        }
+    }
+
+    static Encoded prepare(AuditLog log) {
+        byte[][] strings = {
+                bytes(log.getEntityName()),
+                bytes(log.getFieldName()),
+                bytes(log.getOldValue()),
+                bytes(log.getNewValue()),
+                bytes(log.getActionType()),
+                bytes(log.getIpAddress())
+        };
+        int size = Long.BYTES + 1 + 1;
+        if (log.getActorUserId() != null) {
+            size += Long.BYTES;
+        }
+        if (log.getEntityId() != null) {
+            size += Long.BYTES;
+        }
+        for (byte[] string : strings) {
+            size += Integer.BYTES + (string != null ? string.length : 0);
+        }
+        return new Encoded(log, strings, size);
+    }
+
+    /**
+     * Zapíše záznam na danou absolutní pozici. Délka se zapisuje až nakonec,
+     * takže částečně zapsaný záznam čtenář vidí jako konec dat.
+     */
+    static void write(ByteBuffer buffer, int position, Encoded encoded) {
+        AuditLog log = encoded.log;
+        int p = position + HEADER_SIZE;
+        buffer.putLong(p, toEpochMillis(log.getTimestamp()));
+        p += Long.BYTES;
+        byte flags = 0;
+        if (log.getActorUserId() != null) {
+            flags |= HAS_ACTOR;
+        }
+        if (log.getEntityId() != null) {
+            flags |= HAS_ENTITY_ID;
+        }
+        buffer.put(p++, flags);
+        if (log.getActorUserId() != null) {
+            buffer.putLong(p, log.getActorUserId());
+            p += Long.BYTES;
+        }
+        if (log.getEntityId() != null) {
+            buffer.putLong(p, log.getEntityId());
+            p += Long.BYTES;
+        }
+        buffer.put(p++, (byte) log.getLogLevel().ordinal());
+        for (byte[] string : encoded.strings) {
+            if (string == null) {
+                buffer.putInt(p, -1);
+                p += Integer.BYTES;
+            } else {
+                buffer.putInt(p, string.length);
+                p += Integer.BYTES;
+                buffer.put(p, string);
+                p += string.length;
+            }
+        }
+        buffer.putInt(position + 4, crc(buffer, position + HEADER_SIZE, encoded.payloadSize));
+        buffer.putInt(position, encoded.payloadSize);
+    }
+
+    /**
+     * Délka celého záznamu na pozici, nebo -1 pokud tam žádný platný záznam není
+     * (konec dat, useknutý nebo poškozený zápis).
+     */
+    static int validRecordSize(ByteBuffer buffer, int position, int limit) {
+        if (position + HEADER_SIZE > limit) {
+            return -1;
+        }
+        int payloadSize = buffer.getInt(position);
+        if (payloadSize <= 0 || position + HEADER_SIZE + payloadSize > limit) {
+            return -1;
+        }
+        if (crc(buffer, position + HEADER_SIZE, payloadSize) != buffer.getInt(position + 4)) {
+            return -1;
+        }
+        return HEADER_SIZE + payloadSize;
+    }
+
+    static AuditLog read(ByteBuffer buffer, int position) {
+        int p = position + HEADER_SIZE;
+        AuditLog log = new AuditLog();
+        log.setTimestamp(fromEpochMillis(buffer.getLong(p)));
+        p += Long.BYTES;
+        byte flags = buffer.get(p++);
+        if ((flags & HAS_ACTOR) != 0) {
+            log.setActorUserId(buffer.getLong(p));
+            p += Long.BYTES;
+        }
+        if ((flags & HAS_ENTITY_ID) != 0) {
+            log.setEntityId(buffer.getLong(p));
+            p += Long.BYTES;
+        }
+        log.setLogLevel(LEVELS[buffer.get(p++)]);
+        String[] strings = new String[6];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getInt(p);
+            p += Integer.BYTES;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                buffer.get(p, bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                p += length;
+            }
+        }
+        log.setEntityName(strings[0]);
+        log.setFieldName(strings[1]);
+        log.setOldValue(strings[2]);
+        log.setNewValue(strings[3]);
+        log.setActionType(strings[4]);
+        log.setIpAddress(strings[5]);
+        return log;
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    // Přesnost sloupce audit_log.timestamp (DATETIME(6)) - archiv porovnává klíče s tabulkou přesně
+    static long toEpochMicros(LocalDateTime timestamp) {
+        return Math.addExact(Math.multiplyExact(timestamp.toEpochSecond(ZoneOffset.UTC), 1_000_000L), timestamp.getNano() / 1000);
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.entity.LogLevel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Doba uchování auditních záznamů. Přednost má nastavení podle actionType,
+ * pak podle LogLevel, jinak platí výchozí hodnota.
+ * <p>
+ * Formát: app.audit.retention.by-action=ACCESS:90,LOGIN_FAILED:180 (dny).
+ */
+@Component
+public class AuditRetentionPolicy {
+
+    private final int defaultDays;
+    private final Map<LogLevel, Integer> byLevel = new EnumMap<>(LogLevel.class);
+    private final Map<String, Integer> byAction = new LinkedHashMap<>();
+
+    public AuditRetentionPolicy(@Value("${app.audit.retention.default-days:365}") int defaultDays,
+                                @Value("${app.audit.retention.by-level:}") String byLevel,
+                                @Value("${app.audit.retention.by-action:}") String byAction) {
+        this.defaultDays = defaultDays;
+        parse(byLevel).forEach((key, days) -> this.byLevel.put(LogLevel.valueOf(key), days));
+        this.byAction.putAll(parse(byAction));
+    }
+
+    public int retentionDays(LogLevel logLevel, String actionType) {
+        Integer days = byAction.get(actionType);
+        if (days != null) {
+            return days;
+        }
+        return byLevel.getOrDefault(logLevel, defaultDays);
+    }
+
+    /**
+     * Nejdelší doba uchování - po ní je v oddílu všechno expirované a dá se celý zahodit.
+     */
+    public int maxRetentionDays() {
+        int max = defaultDays;
+        for (int days : byLevel.values()) {
+            max = Math.max(max, days);
+        }
+        for (int days : byAction.values()) {
+            max = Math.max(max, days);
+        }
+        return max;
+    }
+
+    /**
+     * SQL podmínka pro řádky, které jsou ve stáří ageDays už po době uchování,
+     * nebo null, pokud takové nejsou. Parametry se přidají do params.
+     */
+    public String expiredCondition(long ageDays, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        byAction.forEach((action, days) -> {
+            if (ageDays >= days) {
+                conditions.add("action_type = ?");
+                params.add(action);
+            }
+        });
+        String notOverriddenAction = byAction.isEmpty()
+                ? ""
+                : " AND action_type NOT IN (" + String.join(", ", Collections.nCopies(byAction.size(), "?")) + ")";
+        byLevel.forEach((level, days) -> {
+            if (ageDays >= days) {
+                conditions.add("(log_level = ?" + notOverriddenAction + ")");
+                params.add(level.name());
+                params.addAll(byAction.keySet());
+            }
+        });
+        if (ageDays >= defaultDays) {
+            StringBuilder condition = new StringBuilder("(1 = 1");
+            if (!byLevel.isEmpty()) {
+                condition.append(" AND log_level NOT IN (")
+                        .append(String.join(", ", Collections.nCopies(byLevel.size(), "?")))
+                        .append(")");
+                byLevel.keySet().forEach(level -> params.add(level.name()));
+            }
+            condition.append(notOverriddenAction).append(")");
+            params.addAll(byAction.keySet());
+            conditions.add(condition.toString());
+        }
+        return conditions.isEmpty() ? null : "(" + String.join(" OR ", conditions) + ")";
+    }
+
+    private static Map<String, Integer> parse(String value) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return result;
+        }
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            result.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return result;
+    }
+}
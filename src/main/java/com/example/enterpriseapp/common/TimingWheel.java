@@ -0,0 +1,130 @@
+package com.example.enterpriseapp.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchické časové kolo: 4 úrovně po 64 slotech, úroveň 0 má rozlišení jednoho ticku.
+ * Vložení i vypršení položky stojí O(1) (položka se mezi úrovněmi přesune nejvýš
+ * čtyřikrát), cena se platí jen při advance(), nikoli při čtení.
+ * <p>
+ * Při ticku 1 s pokrývá kolo 64^4 s (~194 dní); vzdálenější termíny se odloží na
+ * nejvyšší úroveň a při kaskádě zařadí znovu. Třída není thread-safe.
+ */
+public final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private static final class Entry<T> {
+        private final long deadlineTick;
+        private final T value;
+
+        private Entry(long deadlineTick, T value) {
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+        }
+    }
+
+    private final long tickMillis;
+    private final Object[][] slots = new Object[LEVELS][SLOTS];
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Naplánuje hodnotu na čas deadlineMillis (zaokrouhleno nahoru na tick).
+     * Vrací false, pokud termín už nastal - hodnota se pak nevkládá.
+     */
+    public boolean schedule(T value, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        place(new Entry<>(deadlineTick, value));
+        size++;
+        return true;
+    }
+
+    /**
+     * Posune kolo do času nowMillis a předá expired všechny hodnoty, jejichž termín nastal.
+     */
+    public void advance(long nowMillis, Consumer<? super T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Vyšší úrovně se rozpadají dřív, aby jejich položky stihly i navazující kaskádu
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                }
+            }
+            List<Entry<T>> due = take(0, (int) currentTick & SLOT_MASK);
+            if (due != null) {
+                for (Entry<T> entry : due) {
+                    if (entry.deadlineTick > currentTick) {
+                        place(entry);
+                    } else {
+                        size--;
+                        expired.accept(entry.value);
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level, int slot) {
+        List<Entry<T>> entries = take(level, slot);
+        if (entries != null) {
+            entries.forEach(this::place);
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = Math.max(0, entry.deadlineTick - currentTick);
+        long tick = entry.deadlineTick;
+        if (delta > MAX_DELTA) {
+            // Mimo rozsah kola - uložíme na nejzazší slot a po kaskádě zařadíme znovu
+            tick = currentTick + MAX_DELTA;
+            delta = MAX_DELTA;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        slot(level, slot).add(entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entry<T>> slot(int level, int slot) {
+        List<Entry<T>> entries = (List<Entry<T>>) slots[level][slot];
+        if (entries == null) {
+            entries = new ArrayList<>();
+            slots[level][slot] = entries;
+        }
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entry<T>> take(int level, int slot) {
+        List<Entry<T>> entries = (List<Entry<T>>) slots[level][slot];
+        slots[level][slot] = null;
+        return entries;
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.enterpriseapp.config;
 
-import com.example.enterpriseapp.entity.Role;
-import com.example.enterpriseapp.repository.RoleRepository;
+import com.example.enterpriseapp.service.RoleRegistry;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,19 +8,18 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class DataInitializer {
 
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
 
-    public DataInitializer(RoleRepository roleRepository) {
-        this.roleRepository = roleRepository;
+    public DataInitializer(RoleRegistry roleRegistry) {
+        this.roleRegistry = roleRegistry;
     }
 
     @Bean
     public CommandLineRunner initRoles() {
         return args -> {
-            if (roleRepository.findByName("ROLE_USER").isEmpty()) {
-                Role roleUser = new Role();
-                roleUser.setName("ROLE_USER");
-                roleRepository.save(roleUser);
+            // create() roli rovnou zveřejní v registru
+            if (!roleRegistry.exists("ROLE_USER")) {
+                roleRegistry.create("ROLE_USER");
             }
         };
     }
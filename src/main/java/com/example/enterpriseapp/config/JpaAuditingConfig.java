@@ -0,0 +1,10 @@
+package com.example.enterpriseapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+// Bez toho se @CreatedDate / @LastModifiedDate v entitě User nevyplní
+@Configuration
+@EnableJpaAuditing
+public class JpaAuditingConfig {
+}
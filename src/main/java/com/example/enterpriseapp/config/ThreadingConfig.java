@@ -0,0 +1,78 @@
+package com.example.enterpriseapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Vlákna pro dlouho běžící smyčky auditu (AuditPipeline, AuditJournal), pro načítání UserCache
+ * a pro pokračování asynchronních auth endpointů po hashování hesla.
+ * <p>
+ * Se spring.threads.virtual.enabled=true na Javě 21 (Maven profil java21,
+ * Spring profil virtual) běží na virtuálních vláknech stejně jako požadavky
+ * Tomcatu; jinak jde o obyčejná daemon vlákna.
+ */
+@Configuration
+public class ThreadingConfig {
+
+    public static final String AUDIT_THREAD_FACTORY = "auditThreadFactory";
+    public static final String USER_CACHE_EXECUTOR = "userCacheExecutor";
+    public static final String AUTH_EXECUTOR = "authExecutor";
+
+    @Bean(AUDIT_THREAD_FACTORY)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public ThreadFactory auditThreadFactoryVirtual() {
+        return new VirtualThreadTaskExecutor("audit-").getVirtualThreadFactory();
+    }
+
+    @Bean(AUDIT_THREAD_FACTORY)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadFactory auditThreadFactoryPlatform() {
+        return runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Na virtuálních vláknech jde JDBC načtení mimo zámek Caffeine (synchronized by vlákno přišpendlil)
+    @Bean(USER_CACHE_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor userCacheExecutorVirtual() {
+        return new VirtualThreadTaskExecutor("user-cache-");
+    }
+
+    // Platformní vlákna přišpendlit nejde - načítá rovnou volající vlákno
+    @Bean(USER_CACHE_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Executor userCacheExecutorPlatform() {
+        return Runnable::run;
+    }
+
+    // Pokračování login/register/změny hesla (čtení uživatele, zápis, audit, tokeny) - mimo servletové
+    // vlákno i mimo pool pro BCrypt, který tak počítá jen hashe
+    @Bean(AUTH_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor authExecutorVirtual() {
+        return new VirtualThreadTaskExecutor("auth-");
+    }
+
+    // Každé pokračování drží spojení z poolu - víc vláken než spojení nepomůže
+    @Bean(AUTH_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor authExecutorPlatform(@Value("${app.password-hashing.continuation-threads:10}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("auth-");
+        executor.setDaemon(true);
+        return executor;
+    }
+}
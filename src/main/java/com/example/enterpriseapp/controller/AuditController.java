@@ -0,0 +1,81 @@
+package com.example.enterpriseapp.controller;
+
+import com.example.enterpriseapp.audit.AuditPartitionMaintenance;
+import com.example.enterpriseapp.common.ApiResponse;
+import com.example.enterpriseapp.dto.AuditLogFilter;
+import com.example.enterpriseapp.dto.AuditLogResponse;
+import com.example.enterpriseapp.dto.KeysetPage;
+import com.example.enterpriseapp.entity.LogLevel;
+import com.example.enterpriseapp.exception.CustomException;
+import com.example.enterpriseapp.security.CurrentUser;
+import com.example.enterpriseapp.service.AuditExportService;
+import com.example.enterpriseapp.service.AuditQueryService;
+import com.example.enterpriseapp.service.AuditService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/audit")
+public class AuditController {
+
+    private final AuditQueryService auditQueryService;
+    private final AuditExportService auditExportService;
+    private final AuditService auditService;
+    private final HttpServletRequest httpRequest;
+    private final CurrentUser currentUser;
+    private final AuditPartitionMaintenance partitionMaintenance;
+
+    public AuditController(AuditQueryService auditQueryService, AuditExportService auditExportService, AuditService auditService, HttpServletRequest httpRequest, CurrentUser currentUser, AuditPartitionMaintenance partitionMaintenance) {
+        this.auditQueryService = auditQueryService;
+        this.auditExportService = auditExportService;
+        this.auditService = auditService;
+        this.httpRequest = httpRequest;
+        this.currentUser = currentUser;
+        this.partitionMaintenance = partitionMaintenance;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public ResponseEntity<ApiResponse<KeysetPage<AuditLogResponse>>> search(
+            @ModelAttribute AuditLogFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AuditQueryService.DEFAULT_LIMIT) int limit
+    ) {
+        KeysetPage<AuditLogResponse> page = auditQueryService.search(filter, cursor, limit);
+        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "READ_AUDIT_LOG", currentUser.getId(), "audit_log", null, null, null, null);
+        return ResponseEntity.ok(ApiResponse.ok("Audit log retrieved successfully", page));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @ModelAttribute AuditLogFilter filter,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        AuditExportService.Format exportFormat = AuditExportService.Format.parse(format);
+        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "EXPORT_AUDIT_LOG", currentUser.getId(), "audit_log", null, "format", null, exportFormat.name());
+
+        String filename = "audit-log." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> auditExportService.export(filter, exportFormat, gzip, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .body(body);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/maintenance")
+    public ResponseEntity<ApiResponse<Void>> runMaintenance() {
+        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "AUDIT_MAINTENANCE", currentUser.getId(), "audit_log", null, null, null, null);
+        if (!partitionMaintenance.run()) {
+            throw new CustomException(409, "audit_log is not partitioned");
+        }
+        return ResponseEntity.ok(ApiResponse.ok("Audit maintenance finished", null));
+    }
+}
@@ -4,72 +4,89 @@ import com.example.enterpriseapp.common.ApiResponse;
 import com.example.enterpriseapp.dto.LoginRequest;
 import com.example.enterpriseapp.dto.RegisterRequest;
 import com.example.enterpriseapp.dto.RefreshTokenRequest;
-import com.example.enterpriseapp.entity.User;
 import com.example.enterpriseapp.exception.CustomException;
+import com.example.enterpriseapp.exception.RetryLaterException;
+import com.example.enterpriseapp.security.AccessTokenDenylist;
 import com.example.enterpriseapp.security.JwtUtil;
+import com.example.enterpriseapp.security.LoginThrottle;
+import com.example.enterpriseapp.security.VerifiedToken;
+import com.example.enterpriseapp.service.RefreshTokenService;
 import com.example.enterpriseapp.service.UserService;
+import com.example.enterpriseapp.service.UserSnapshot;
 import com.example.enterpriseapp.entity.LogLevel;
+import com.example.enterpriseapp.entity.RefreshToken;
 import com.example.enterpriseapp.service.AuditService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     private final UserService userService;
-    private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final AuditService auditService;
     private final HttpServletRequest httpRequest;
+    private final LoginThrottle loginThrottle;
+    private final RefreshTokenService refreshTokenService;
+    private final AccessTokenDenylist accessTokenDenylist;
 
     @Autowired
-    public AuthController(UserService userService, AuthenticationManager authenticationManager, JwtUtil jwtUtil, AuditService auditService, HttpServletRequest httpRequest) {
+    public AuthController(UserService userService, JwtUtil jwtUtil, AuditService auditService, HttpServletRequest httpRequest, LoginThrottle loginThrottle, RefreshTokenService refreshTokenService, AccessTokenDenylist accessTokenDenylist) {
         this.userService = userService;
-        this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
         this.auditService = auditService;
         this.httpRequest = httpRequest;
+        this.loginThrottle = loginThrottle;
+        this.refreshTokenService = refreshTokenService;
+        this.accessTokenDenylist = accessTokenDenylist;
     }
 
-    @PostMapping("/register")
-    public ResponseEntity<ApiResponse<Void>> register(@RequestBody RegisterRequest request) {
-        userService.register(request);
+    // login a register se vrací jako CompletableFuture - servletové vlákno se hned uvolní. Do poolu
+    // pro hashování jde jen BCrypt, čtení uživatele, audit a vydání tokenů běží v pokračování
+    // (UserService). HttpServletRequest je vázaný na vlákno požadavku - IP adresu čteme předem.
 
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "CREATE_USER", null, "User", null, null, null, null);
+    @PostMapping("/register")
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> register(@RequestBody RegisterRequest request) {
+        String ipAddress = httpRequest.getRemoteAddr();
+        return userService.register(request).thenApply(ignored -> {
+            auditService.logChange(ipAddress, LogLevel.INFO, "CREATE_USER", null, "User", null, null, null, null);
 
-        return ResponseEntity.ok(ApiResponse.ok("User registered successfully", null));
+            return ResponseEntity.ok(ApiResponse.ok("User registered successfully", null));
+        });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<Map<String, String>>> login(@RequestBody LoginRequest request) {
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-            );
-        } catch (AuthenticationException e) {
-            auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.WARN, "LOGIN_FAILED", null, "User", null, null, null, request.getUsername());
-            throw new CustomException(401, "Invalid username or password");
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, String>>>> login(@RequestBody LoginRequest request) {
+        String ipAddress = httpRequest.getRemoteAddr();
+        // Ještě před BCryptem - odmítnutý pokus nestojí žádný výpočet hesla
+        long retryAfter = loginThrottle.retryAfterSeconds(request.getUsername(), ipAddress);
+        if (retryAfter > 0) {
+            throw new RetryLaterException(429, retryAfter, "Too many failed login attempts");
         }
+        return userService.authenticate(request.getUsername(), request.getPassword())
+                .thenApply(user -> issueTokens(user, request, ipAddress));
+    }
 
-        // Najdeme uživatele podle username (login se přihlašuje přes username)
-        User user = userService.findByUsername(request.getUsername());
+    private ResponseEntity<ApiResponse<Map<String, String>>> issueTokens(UserSnapshot user, LoginRequest request, String ipAddress) {
         if (user == null) {
-            throw new CustomException(404, "User not found after authentication");
+            loginThrottle.recordFailure(request.getUsername(), ipAddress);
+            auditService.logChange(ipAddress, LogLevel.WARN, "LOGIN_FAILED", null, "User", null, null, null, request.getUsername());
+            throw new CustomException(401, "Invalid username or password");
         }
 
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "LOGIN_SUCCESS", null, "User", null, null, null, null);
+        auditService.logChange(ipAddress, LogLevel.INFO, "LOGIN_SUCCESS", null, "User", null, null, null, null);
 
-        String accessToken = jwtUtil.generateAccessToken(user.getUsername(), user.getId());
-        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername(), user.getId());
+        String accessToken = generateAccessToken(user);
+        // Každé přihlášení zakládá novou rodinu refresh tokenů
+        RefreshToken stored = refreshTokenService.issue(user.getId(), null);
+        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername(), user.getId(), stored.getId(), stored.getFamilyId());
 
         Map<String, String> tokens = new HashMap<>();
         tokens.put("accessToken", accessToken);
@@ -80,29 +97,81 @@ public class AuthController {
 
     @PostMapping("/refresh")
     public ResponseEntity<ApiResponse<Map<String, String>>> refresh(@RequestBody RefreshTokenRequest request) {
-        String refreshToken = request.getRefreshToken();
+        String ipAddress = httpRequest.getRemoteAddr();
+        VerifiedToken token = verifyOrNull(request.getRefreshToken());
+        if (token == null || !token.isRefreshToken() || accessTokenDenylist.isRevoked(token)) {
+            auditService.logChange(ipAddress, LogLevel.WARN, "INVALID_REFRESH_TOKEN", null, "User", null, null, null, null);
+            throw new CustomException(401, "Invalid refresh token");
+        }
 
-        try {
-            // Nově získáme ID uživatele z tokenu
-            Long userId = jwtUtil.extractUserId(refreshToken);
+        // Předložený token se zneplatní a klient dostane nový - každý refresh token jde použít jen jednou
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token);
+        if (rotation.getStatus() == RefreshTokenService.Status.REUSED) {
+            auditService.logChange(ipAddress, LogLevel.WARN, "REFRESH_TOKEN_REUSE", null, "User", token.getUserId(), null, null, rotation.getFamilyId());
+            throw new CustomException(401, "Invalid refresh token");
+        }
+        if (rotation.getStatus() != RefreshTokenService.Status.ROTATED) {
+            auditService.logChange(ipAddress, LogLevel.WARN, "INVALID_REFRESH_TOKEN", null, "User", null, null, null, null);
+            throw new CustomException(401, "Invalid refresh token");
+        }
+
+        UserSnapshot user = userService.findById(token.getUserId());
+        if (user == null) {
+            throw new CustomException(404, "User not found");
+        }
 
-            User user = userService.findById(userId);
-            if (user == null) {
-                throw new CustomException(404, "User not found");
-            }
+        // Uživatele načítáme znovu, takže změny rolí se projeví nejpozději po vypršení access tokenu
+        String newAccessToken = generateAccessToken(user);
+        String newRefreshToken = jwtUtil.generateRefreshToken(user.getUsername(), user.getId(), rotation.getTokenId(), rotation.getFamilyId());
 
-            String newAccessToken = jwtUtil.generateAccessToken(user.getUsername(), user.getId());
+        auditService.logChange(ipAddress, LogLevel.INFO, "REFRESH_TOKEN", null, "User", null, null, null, null);
 
-            auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "REFRESH_TOKEN", null, "User", null, null, null, null);
+        Map<String, String> tokens = new HashMap<>();
+        tokens.put("accessToken", newAccessToken);
+        tokens.put("refreshToken", newRefreshToken);
 
-            Map<String, String> tokens = new HashMap<>();
-            tokens.put("accessToken", newAccessToken);
+        return ResponseEntity.ok(ApiResponse.ok("Token refreshed successfully", tokens));
+    }
 
-            return ResponseEntity.ok(ApiResponse.ok("Token refreshed successfully", tokens));
-        } catch (Exception e) {
-            auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.WARN, "INVALID_REFRESH_TOKEN", null, "User", null, null, null, null);
+    /**
+     * Odhlášení: odvolá předložený access token a, je-li v těle, celou rodinu refresh tokenu.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(@RequestBody(required = false) RefreshTokenRequest request) {
+        String authHeader = httpRequest.getHeader("Authorization");
+        VerifiedToken accessToken = authHeader != null && authHeader.startsWith("Bearer ")
+                ? verifyOrNull(authHeader.substring(7))
+                : null;
+        if (accessToken == null || accessToken.isRefreshToken()) {
+            throw new CustomException(401, "Invalid authentication token");
+        }
+        accessTokenDenylist.revoke(accessToken);
 
-            throw new CustomException(401, "Invalid refresh token");
+        VerifiedToken refreshToken = request != null ? verifyOrNull(request.getRefreshToken()) : null;
+        if (refreshToken != null && refreshToken.isRefreshToken()
+                && refreshToken.getUserId() != null && refreshToken.getUserId().equals(accessToken.getUserId())) {
+            refreshTokenService.revokeFamily(refreshToken.getFamilyId());
+        }
+
+        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "LOGOUT", accessToken.getUserId(), "User", accessToken.getUserId(), null, null, null);
+
+        return ResponseEntity.ok(ApiResponse.ok("Logout successful", null));
+    }
+
+    // --- Pomocné metody ---
+
+    private VerifiedToken verifyOrNull(String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            return jwtUtil.verify(token);
+        } catch (Exception e) {
+            return null;
         }
     }
+
+    private String generateAccessToken(UserSnapshot user) {
+        return jwtUtil.generateAccessToken(user.getUsername(), user.getId(), user.getRoles(), user.getVersion());
+    }
 }
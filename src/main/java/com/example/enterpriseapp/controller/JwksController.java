@@ -0,0 +1,31 @@
+package com.example.enterpriseapp.controller;
+
+import com.example.enterpriseapp.security.JwtKeyManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Veřejné klíče pro ověření JWT bez sdíleného tajemství (ostatní uzly, navazující služby).
+ */
+@RestController
+public class JwksController {
+
+    private final JwtKeyManager keyManager;
+
+    public JwksController(JwtKeyManager keyManager) {
+        this.keyManager = keyManager;
+    }
+
+    // Standardní formát JWK Set, proto bez obálky ApiResponse
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(keyManager.jwks());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.enterpriseapp.controller;
+
+import com.example.enterpriseapp.common.ApiResponse;
+import com.example.enterpriseapp.dto.CreateRoleRequest;
+import com.example.enterpriseapp.dto.RoleListResponse;
+import com.example.enterpriseapp.entity.LogLevel;
+import com.example.enterpriseapp.entity.Role;
+import com.example.enterpriseapp.security.CurrentUser;
+import com.example.enterpriseapp.service.AuditService;
+import com.example.enterpriseapp.service.RoleRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/roles")
+@PreAuthorize("hasRole('ADMIN')")
+public class RoleController {
+
+    private final RoleRegistry roleRegistry;
+    private final AuditService auditService;
+    private final HttpServletRequest httpRequest;
+    private final CurrentUser currentUser;
+
+    public RoleController(RoleRegistry roleRegistry, AuditService auditService, HttpServletRequest httpRequest, CurrentUser currentUser) {
+        this.roleRegistry = roleRegistry;
+        this.auditService = auditService;
+        this.httpRequest = httpRequest;
+        this.currentUser = currentUser;
+    }
+
+    // Čte se z RoleRegistry, bez dotazu do DB
+    @GetMapping
+    public ResponseEntity<ApiResponse<RoleListResponse>> listRoles() {
+        RoleListResponse response = new RoleListResponse(roleRegistry.names(), roleRegistry.version());
+        return ResponseEntity.ok(ApiResponse.ok("Roles retrieved successfully", response));
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<RoleListResponse>> createRole(
+            @Valid @RequestBody CreateRoleRequest request
+    ) {
+        Role role = roleRegistry.create(request.getName());
+        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "CREATE_ROLE", currentUser.getId(), "roles", role.getId(), "name", null, role.getName());
+        RoleListResponse response = new RoleListResponse(roleRegistry.names(), roleRegistry.version());
+        return ResponseEntity.ok(ApiResponse.ok("Role created successfully", response));
+    }
+}
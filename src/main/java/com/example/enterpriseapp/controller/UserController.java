@@ -2,193 +2,210 @@ package com.example.enterpriseapp.controller;
 
 import com.example.enterpriseapp.common.ApiResponse;
 import com.example.enterpriseapp.dto.AdminChangePasswordRequest;
+import com.example.enterpriseapp.dto.BulkRoleRequest;
+import com.example.enterpriseapp.dto.BulkRoleResult;
 import com.example.enterpriseapp.dto.ChangeEmailRequest;
 import com.example.enterpriseapp.dto.ChangePasswordRequest;
+import com.example.enterpriseapp.dto.KeysetPage;
 import com.example.enterpriseapp.dto.UserInfoResponse;
+import com.example.enterpriseapp.dto.UserInfoView;
+import com.example.enterpriseapp.dto.UserListFilter;
+import com.example.enterpriseapp.dto.UserListItem;
 import com.example.enterpriseapp.entity.LogLevel;
-import com.example.enterpriseapp.entity.Role;
-import com.example.enterpriseapp.entity.User;
-import com.example.enterpriseapp.exception.CustomException;
-import com.example.enterpriseapp.repository.RoleRepository;
-import com.example.enterpriseapp.repository.UserRepository;
+import com.example.enterpriseapp.security.CurrentUser;
 import com.example.enterpriseapp.service.AuditService;
+import com.example.enterpriseapp.service.BulkRoleService;
+import com.example.enterpriseapp.service.UserImportService;
+import com.example.enterpriseapp.service.UserQueryService;
+import com.example.enterpriseapp.service.UserETags;
+import com.example.enterpriseapp.service.UserService;
+import com.example.enterpriseapp.service.UserSnapshot;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashSet;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.time.LocalDateTime;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
 
-    private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final RoleRepository roleRepository;
+    private final UserService userService;
+    private final UserQueryService userQueryService;
     private final AuditService auditService;
     private final HttpServletRequest httpRequest;
+    private final CurrentUser currentUser;
+    private final UserImportService userImportService;
+    private final BulkRoleService bulkRoleService;
 
-    public UserController(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, AuditService auditService, HttpServletRequest httpRequest) {
-        this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
-        this.passwordEncoder = passwordEncoder;
+    public UserController(UserService userService, UserQueryService userQueryService, AuditService auditService, HttpServletRequest httpRequest, CurrentUser currentUser, UserImportService userImportService, BulkRoleService bulkRoleService) {
+        this.userService = userService;
+        this.userQueryService = userQueryService;
         this.auditService = auditService;
         this.httpRequest = httpRequest;
+        this.currentUser = currentUser;
+        this.userImportService = userImportService;
+        this.bulkRoleService = bulkRoleService;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public ResponseEntity<ApiResponse<KeysetPage<UserListItem>>> listUsers(
+            @ModelAttribute UserListFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + UserQueryService.DEFAULT_LIMIT) int limit
+    ) {
+        KeysetPage<UserListItem> page = userQueryService.search(filter, cursor, limit);
+        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "READ_USERS", currentUser.getId(), "users", null, null, null, null);
+        return ResponseEntity.ok(ApiResponse.ok("Users retrieved successfully", page));
     }
 
     @GetMapping("/me")
-    public ResponseEntity<ApiResponse<UserInfoResponse>> getCurrentUser(@AuthenticationPrincipal UserDetails userDetails) {
-        User actorUser = findUserOrThrow(userDetails.getUsername());
-        UserInfoResponse response = mapToUserInfoResponse(actorUser);
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "READ_USER", actorUser.getId(), "user_details", actorUser.getId(), null, null, null);
-        return ResponseEntity.ok(ApiResponse.ok("User details retrieved successfully", response));
+    public ResponseEntity<ApiResponse<UserInfoResponse>> getCurrentUser() {
+        // Verze i tělo ze snapshotu, který načetla autentizace - shoda = 304 bez dotazu, serializace i auditu.
+        // Změnu z jiného uzlu snapshot uvidí nejpozději po app.user-cache.ttl.
+        UserSnapshot me = currentUser.get();
+        if (isNotModified(me.getETag(), me.getUpdatedAt())) {
+            return notModified(me.getETag(), me.getUpdatedAt());
+        }
+        return userInfo(userService.getCurrentUserInfo());
     }
 
     @PatchMapping("/me/change-password")
-    public ResponseEntity<ApiResponse<Void>> changeMyPassword(
-            @AuthenticationPrincipal UserDetails userDetails,
-            @Valid @RequestBody ChangePasswordRequest request
-    ) {
-        User actorUser = findUserOrThrow(userDetails.getUsername());
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "CHANGE_PASSWORD", actorUser.getId(), "password", actorUser.getId(), null, null, null);
-        return changePassword(actorUser.getUsername(), request, true);
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> changeMyPassword(@Valid @RequestBody ChangePasswordRequest request) {
+        // BCrypt běží v poolu pro hashování, servletové vlákno se uvolní
+        return userService.changeMyPassword(request)
+                .thenApply(ignored -> ResponseEntity.ok(ApiResponse.ok("Password changed successfully", null)));
     }
 
     @PatchMapping("/me/change-email")
-    public ResponseEntity<ApiResponse<Void>> changeMyEmail(
-            @AuthenticationPrincipal UserDetails userDetails,
-            @RequestBody ChangeEmailRequest request
-    ) {
-        User actorUser = findUserOrThrow(userDetails.getUsername());
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "CHANGE_EMAIL", actorUser.getId(), "email", actorUser.getId(), null, actorUser.getEmail(), request.getNewEmail());
-        return changeEmail(actorUser.getUsername(), request);
+    public ResponseEntity<ApiResponse<Void>> changeMyEmail(@RequestBody ChangeEmailRequest request) {
+        userService.changeMyEmail(request);
+        return ResponseEntity.ok(ApiResponse.ok("Email changed successfully", null));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/{username}")
-    public ResponseEntity<ApiResponse<UserInfoResponse>> getUserByUsername(
-            @AuthenticationPrincipal UserDetails userDetails,
-            @PathVariable String username
-    ) {
-        User actorUser = findUserOrThrow(userDetails.getUsername());
-        User user = findUserOrThrow(username);
-        UserInfoResponse response = mapToUserInfoResponse(user);
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "READ_USER", actorUser.getId(), "user_details", user.getId(), null, null, null);
-        return ResponseEntity.ok(ApiResponse.ok("User details retrieved successfully", response));
+    public ResponseEntity<ApiResponse<UserInfoResponse>> getUserByUsername(@PathVariable String username) {
+        // Verze i tělo z jedné projekce v DB - 304 vždy odpovídá tomu, co by vrátila 200
+        UserInfoView user = userQueryService.findUserInfo(username);
+        if (isNotModified(user.getETag(), user.getUpdatedAt())) {
+            return notModified(user.getETag(), user.getUpdatedAt());
+        }
+        userService.auditUserRead(user);
+        return userInfo(user);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @PatchMapping("/{username}/change-password")
-    public ResponseEntity<ApiResponse<Void>> adminChangePassword(
-            @AuthenticationPrincipal UserDetails userDetails,
+    public CompletableFuture<ResponseEntity<ApiResponse<Void>>> adminChangePassword(
             @PathVariable String username,
             @RequestBody @Valid AdminChangePasswordRequest request
     ) {
-        User actorUser = findUserOrThrow(userDetails.getUsername());
-        User user = findUserOrThrow(username);
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "CHANGE_PASSWORD", actorUser.getId(), "password", user.getId(), null, null, null);
-        return ResponseEntity.ok(ApiResponse.ok("Password changed successfully", null));
+        return userService.adminChangePassword(username, request)
+                .thenApply(ignored -> ResponseEntity.ok(ApiResponse.ok("Password changed successfully", null)));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @PatchMapping("/{username}/change-email")
     public ResponseEntity<ApiResponse<Void>> adminChangeEmail(
-            @AuthenticationPrincipal UserDetails userDetails,
             @PathVariable String username,
             @RequestBody ChangeEmailRequest request
     ) {
-        User actorUser = findUserOrThrow(userDetails.getUsername());
-        User user = findUserOrThrow(username);
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "CHANGE_EMAIL", actorUser.getId(), "email", user.getId(), null, user.getEmail(), request.getNewEmail());
-        return changeEmail(username, request);
+        userService.adminChangeEmail(username, request);
+        return ResponseEntity.ok(ApiResponse.ok("Email changed successfully", null));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{username}/delete")
-    public ResponseEntity<ApiResponse<Void>> deleteUser(
-            @AuthenticationPrincipal UserDetails userDetails,
-            @PathVariable String username
-    ) {
-        User actorUser = findUserOrThrow(userDetails.getUsername());
-        User user = findUserOrThrow(username);
-        userRepository.delete(user);
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "DELETE_USER", actorUser.getId(), "account", user.getId(), null, null, null);
+    public ResponseEntity<ApiResponse<Void>> deleteUser(@PathVariable String username) {
+        userService.deleteUser(username);
         return ResponseEntity.ok(ApiResponse.ok("User deleted successfully", null));
     }
 
+    /**
+     * Hromadný import (CSV s hlavičkou username,email,password nebo NDJSON). Odpověď je NDJSON
+     * s chybami po řádcích a průběhem po dávkách; skip přeskočí už zpracované řádky.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/import")
+    public ResponseEntity<StreamingResponseBody> importUsers(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "0") long skip
+    ) throws IOException {
+        // Request scope ve streamovaném těle už není k dispozici - id čteme předem
+        Long actorId = currentUser.getId();
+        UserImportService.Format importFormat = UserImportService.Format.parse(format);
+        userImportService.checkAvailable();
+        // Tělo požadavku se čte až při streamování odpovědi, bez načtení celého souboru
+        InputStream input = httpRequest.getInputStream();
+        String ipAddress = httpRequest.getRemoteAddr();
+
+        StreamingResponseBody body = out -> {
+            UserImportService.Result result = userImportService.importUsers(input, importFormat, skip, out);
+            auditService.logChange(ipAddress, LogLevel.INFO, "IMPORT_USERS", actorId, "users", null, "import", null,
+                    "rows=" + result.getRows() + ", imported=" + result.getImported() + ", failed=" + result.getFailed());
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @PatchMapping("/{username}/roles")
     public ResponseEntity<ApiResponse<Void>> updateUserRoles(
-            @AuthenticationPrincipal UserDetails userDetails,
             @PathVariable String username,
             @RequestBody Set<String> roles
     ) {
-        User actorUser = findUserOrThrow(userDetails.getUsername());
-        User user = findUserOrThrow(username);
-
-        Set<Role> newRoles = new HashSet<>();
-        for (String roleName : roles) {
-            Role role = roleRepository.findByName(roleName)
-                    .orElseThrow(() -> new CustomException(404, "Role not found: " + roleName));
-            newRoles.add(role);
-        }
-
-        auditService.logChange(httpRequest.getRemoteAddr(), LogLevel.INFO, "UPDATE_ROLES", actorUser.getId(), "roles", user.getId(), null, user.getRoles().toString(), newRoles.toString());
-
-        user.setRoles(newRoles);
-        userRepository.save(user);
-
+        userService.updateUserRoles(username, roles);
         return ResponseEntity.ok(ApiResponse.ok("User roles updated successfully", null));
     }
 
+    /**
+     * Přidá nebo odebere role celé množině uživatelů (seznam usernames nebo rozsah id).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/roles/bulk")
+    public ResponseEntity<ApiResponse<BulkRoleResult>> bulkUpdateRoles(@RequestBody BulkRoleRequest request) {
+        BulkRoleResult result = bulkRoleService.apply(request, currentUser.getId(), httpRequest.getRemoteAddr());
+        return ResponseEntity.ok(ApiResponse.ok("User roles updated successfully", result));
+    }
+
     // --- Pomocné metody ---
 
-    private User findUserOrThrow(String username) {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new CustomException(404, "User not found"));
+    // ServletWebRequest bez response jen vyhodnotí If-None-Match / If-Modified-Since, hlavičky nastavujeme sami
+    private boolean isNotModified(String eTag, LocalDateTime updatedAt) {
+        return new ServletWebRequest(httpRequest).checkNotModified(eTag, UserETags.lastModified(updatedAt));
     }
 
-    private UserInfoResponse mapToUserInfoResponse(User user) {
-        return new UserInfoResponse(
-                user.getUsername(),
-                user.getEmail(),
-                user.getRoles()
-                        .stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toSet())
-        );
+    private ResponseEntity<ApiResponse<UserInfoResponse>> notModified(String eTag, LocalDateTime updatedAt) {
+        return validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag, updatedAt).build();
     }
 
-    private ResponseEntity<ApiResponse<Void>> changePassword(String username, ChangePasswordRequest request, boolean validateOldPassword) {
-        User user = findUserOrThrow(username);
-
-        if (validateOldPassword) {
-            if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
-                throw new CustomException(400, "Old password is incorrect");
-            }
-        }
-
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
-
-        return ResponseEntity.ok(ApiResponse.ok("Password changed successfully", null));
+    private ResponseEntity<ApiResponse<UserInfoResponse>> userInfo(UserInfoView user) {
+        return validators(ResponseEntity.ok(), user.getETag(), user.getUpdatedAt())
+                .body(ApiResponse.ok("User details retrieved successfully", user.toResponse()));
     }
 
-    private ResponseEntity<ApiResponse<Void>> changeEmail(String username, ChangeEmailRequest request) {
-        User user = findUserOrThrow(username);
-
-        user.setEmail(request.getNewEmail());
-        userRepository.save(user);
-
-        return ResponseEntity.ok(ApiResponse.ok("Email changed successfully", null));
+    // Odpověď je per-user - jen soukromá cache a před použitím vždy revalidace
+    private static ResponseEntity.BodyBuilder validators(ResponseEntity.BodyBuilder builder, String eTag, LocalDateTime updatedAt) {
+        builder.eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate());
+        long lastModified = UserETags.lastModified(updatedAt);
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
     }
 }
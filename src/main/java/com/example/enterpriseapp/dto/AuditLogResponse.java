@@ -0,0 +1,87 @@
+package com.example.enterpriseapp.dto;
+
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.time.LocalDateTime;
+
+public class AuditLogResponse {
+    // Časově řazená id přesahují 2^53 (bezpečné celé číslo v JS), proto se posílají jako řetězce
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+    private LocalDateTime timestamp;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long actorUserId;
+    private String entityName;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long entityId;
+    private String fieldName;
+    private String oldValue;
+    private String newValue;
+    private String actionType;
+    private String ipAddress;
+    private LogLevel logLevel;
+
+    public static AuditLogResponse from(AuditLog log) {
+        AuditLogResponse response = new AuditLogResponse();
+        response.id = log.getId();
+        response.timestamp = log.getTimestamp();
+        response.actorUserId = log.getActorUserId();
+        response.entityName = log.getEntityName();
+        response.entityId = log.getEntityId();
+        response.fieldName = log.getFieldName();
+        response.oldValue = log.getOldValue();
+        response.newValue = log.getNewValue();
+        response.actionType = log.getActionType();
+        response.ipAddress = log.getIpAddress();
+        response.logLevel = log.getLogLevel();
+        return response;
+    }
+
+    // Gettery
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Long getActorUserId() {
+        return actorUserId;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public String getOldValue() {
+        return oldValue;
+    }
+
+    public String getNewValue() {
+        return newValue;
+    }
+
+    public String getActionType() {
+        return actionType;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+}
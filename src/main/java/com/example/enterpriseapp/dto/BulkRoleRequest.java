@@ -0,0 +1,62 @@
+package com.example.enterpriseapp.dto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hromadné přidání/odebrání rolí. Uživatelé se vybírají buď seznamem usernames,
+ * nebo rozsahem id (fromUserId..toUserId včetně).
+ */
+public class BulkRoleRequest {
+
+    public enum Action {
+        ADD, REMOVE
+    }
+
+    private Action action;
+    private Set<String> roles;
+    private List<String> usernames;
+    private Long fromUserId;
+    private Long toUserId;
+
+    // Gettery a settery
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Set<String> roles) {
+        this.roles = roles;
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public void setUsernames(List<String> usernames) {
+        this.usernames = usernames;
+    }
+
+    public Long getFromUserId() {
+        return fromUserId;
+    }
+
+    public void setFromUserId(Long fromUserId) {
+        this.fromUserId = fromUserId;
+    }
+
+    public Long getToUserId() {
+        return toUserId;
+    }
+
+    public void setToUserId(Long toUserId) {
+        this.toUserId = toUserId;
+    }
+}
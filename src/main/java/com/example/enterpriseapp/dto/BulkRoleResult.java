@@ -0,0 +1,42 @@
+package com.example.enterpriseapp.dto;
+
+/**
+ * Výsledek hromadné změny rolí: počet uživatelů, kterým se role změnily, změněných řádků
+ * users_roles a dávek (= auditních záznamů).
+ */
+public class BulkRoleResult {
+    private long changedUsers;
+    private long changedAssignments;
+    private int batches;
+
+    public BulkRoleResult(long changedUsers, long changedAssignments, int batches) {
+        this.changedUsers = changedUsers;
+        this.changedAssignments = changedAssignments;
+        this.batches = batches;
+    }
+
+    // Gettery a settery
+    public long getChangedUsers() {
+        return changedUsers;
+    }
+
+    public void setChangedUsers(long changedUsers) {
+        this.changedUsers = changedUsers;
+    }
+
+    public long getChangedAssignments() {
+        return changedAssignments;
+    }
+
+    public void setChangedAssignments(long changedAssignments) {
+        this.changedAssignments = changedAssignments;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public void setBatches(int batches) {
+        this.batches = batches;
+    }
+}
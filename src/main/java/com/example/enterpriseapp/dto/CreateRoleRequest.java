@@ -0,0 +1,23 @@
+package com.example.enterpriseapp.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+public class CreateRoleRequest {
+
+    // Stejná konvence jako ROLE_USER (hasRole() prefix ROLE_ doplňuje sám)
+    @NotBlank
+    @Pattern(regexp = "ROLE_[A-Z0-9_]+")
+    private String name;
+
+    public CreateRoleRequest() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.enterpriseapp.dto;
+
+import java.util.List;
+
+/**
+ * Jedna stránka výsledků stránkovaných přes keyset. nextCursor je null na poslední stránce.
+ */
+public class KeysetPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Gettery a settery
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.enterpriseapp.dto;
+
+import java.util.Set;
+
+/**
+ * Názvy rolí a verze RoleRegistry, ze které pocházejí.
+ */
+public class RoleListResponse {
+    private Set<String> roles;
+    private long version;
+
+    public RoleListResponse(Set<String> roles, long version) {
+        this.roles = roles;
+        this.version = version;
+    }
+
+    // Gettery a settery
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Set<String> roles) {
+        this.roles = roles;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
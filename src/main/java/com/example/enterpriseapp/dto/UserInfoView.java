@@ -0,0 +1,55 @@
+package com.example.enterpriseapp.dto;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Read model pro /api/user/me (ze snapshotu přihlášeného uživatele) a /api/user/{username}
+ * (projekce z DB) - jen to, co se vrací, plus id pro audit a validátory (updatedAt, ETag)
+ * pro podmíněné GET.
+ */
+public class UserInfoView {
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final Set<String> roles;
+    private final LocalDateTime updatedAt;
+    private final String eTag;
+
+    public UserInfoView(Long id, String username, String email, Set<String> roles, LocalDateTime updatedAt, String eTag) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.roles = roles;
+        this.updatedAt = updatedAt;
+        this.eTag = eTag;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public UserInfoResponse toResponse() {
+        return new UserInfoResponse(username, email, roles);
+    }
+}
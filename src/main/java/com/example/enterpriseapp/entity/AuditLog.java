@@ -3,20 +3,27 @@ package com.example.enterpriseapp.entity;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.persistence.Id;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
+import jakarta.persistence.Index;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "audit_log")
+@Table(name = "audit_log", indexes = {
+        // Každý filtr API /api/audit = range scan přes (sloupec, timestamp, id)
+        @Index(name = "idx_audit_log_ts_id", columnList = "timestamp, id"),
+        @Index(name = "idx_audit_log_actor_ts_id", columnList = "actor_user_id, timestamp, id"),
+        @Index(name = "idx_audit_log_entity_ts_id", columnList = "entity_id, timestamp, id"),
+        @Index(name = "idx_audit_log_action_ts_id", columnList = "action_type, timestamp, id"),
+        @Index(name = "idx_audit_log_level_ts_id", columnList = "log_level, timestamp, id"),
+        @Index(name = "idx_audit_log_ip_ts_id", columnList = "ip_address, timestamp, id")
+})
 public class AuditLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(nullable = false)
@@ -59,6 +66,10 @@ public class AuditLog {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -0,0 +1,60 @@
+package com.example.enterpriseapp.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Denní souhrn auditních záznamů (např. ACCESS), které už prošly dobou uchování.
+ */
+@Entity
+@Table(name = "audit_log_daily_summary", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_audit_summary_day", columnNames = {"day", "action_type", "entity_name", "log_level"})
+})
+public class AuditLogDailySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private String actionType;
+
+    @Column(nullable = false)
+    private String entityName;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private LogLevel logLevel;
+
+    @Column(nullable = false)
+    private long eventCount;
+
+    // Gettery
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public String getActionType() {
+        return actionType;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.enterpriseapp.entity;
+
+import com.example.enterpriseapp.common.TimeOrderedIds;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Hibernate generátor pro @TimeOrderedId. Číslo uzlu čte z
+ * spring.jpa.properties.app.id.node-id.
+ */
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator {
+
+    static final String NODE_ID_SETTING = "app.id.node-id";
+
+    private final transient TimeOrderedIds ids;
+
+    // Hibernate hledá konstruktor přesně s CustomIdGeneratorCreationContext (u @IdGeneratorType na id)
+    public TimeOrderedIdGenerator(TimeOrderedId config, Member member, CustomIdGeneratorCreationContext context) {
+        Object nodeId = context.getServiceRegistry()
+                .requireService(ConfigurationService.class)
+                .getSettings()
+                .get(NODE_ID_SETTING);
+        this.ids = TimeOrderedIds.forNode(nodeId != null ? Integer.parseInt(nodeId.toString().trim()) : 0);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return ids.nextId();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
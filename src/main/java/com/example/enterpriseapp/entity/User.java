@@ -18,11 +18,16 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @EntityListeners(AuditingEntityListener.class)
 @Entity
-@Table(name = "users") // kvůli rezervovanému slovu "user" v některých databázích
+@Table(name = "users", indexes = { // kvůli rezervovanému slovu "user" v některých databázích
+        // Keyset stránkování výpisu /api/user
+        @Index(name = "idx_users_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_users_updated_id", columnList = "updated_at, id"),
+        @Index(name = "idx_users_email", columnList = "email")
+})
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
     private String username;
     private String email;
@@ -36,6 +41,10 @@ public class User {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Per-user not-before pro JWT (UTC) - odvolání všech tokenů sdílené mezi uzly
+    @Column(name = "tokens_valid_after")
+    private LocalDateTime tokensValidAfter;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "users_roles",
@@ -65,6 +74,18 @@ public class User {
         return roles;
     }
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getTokensValidAfter() {
+        return tokensValidAfter;
+    }
+
     // Settery
     public void setId(Long id) {
         this.id = id;
@@ -85,4 +106,9 @@ public class User {
     public void setRoles(Set<Role> roles) {
         this.roles = roles;
     }
+
+    // Změna samotné kolekce rolí nespustí @LastModifiedDate, verzi uživatele posouváme ručně
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
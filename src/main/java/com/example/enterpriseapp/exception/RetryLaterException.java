@@ -0,0 +1,26 @@
+package com.example.enterpriseapp.exception;
+
+/**
+ * Dočasné odmítnutí požadavku (přetížení, omezení rychlosti). GlobalExceptionHandler
+ * vrací HTTP status z výjimky a hlavičku Retry-After.
+ */
+public class RetryLaterException extends RuntimeException {
+
+    private final int status;
+    private final long retryAfterSeconds;
+
+    public RetryLaterException(int status, long retryAfterSeconds, String message) {
+        // Očekávané odmítnutí pod zátěží - stack trace se nesestavuje
+        super(message, null, false, false);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.enterpriseapp.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 import com.example.enterpriseapp.entity.AuditLog;
 
 
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
-}
\ No newline at end of file
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog> {
+}
@@ -0,0 +1,33 @@
+package com.example.enterpriseapp.repository;
+
+import com.example.enterpriseapp.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // Podmíněný update - z více souběžných pokusů o rotaci uspěje jen jeden
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.id = :id and t.revoked = false")
+    int markUsed(@Param("id") String id);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.familyId = :familyId and t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    @Query("select t.id from RefreshToken t where t.familyId = :familyId")
+    List<String> findIdsByFamilyId(@Param("familyId") String familyId);
+
+    @Query("select t.id from RefreshToken t where t.revoked = true and t.expiresAt > :now")
+    List<String> findRevokedIds(@Param("now") LocalDateTime now);
+
+    // Po dávkách přes index na expires_at, bez průchodu celé tabulky
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE expires_at < :now LIMIT :limit", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -3,8 +3,11 @@ package com.example.enterpriseapp.repository;
 import com.example.enterpriseapp.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
     Optional<Role> findByName(String name);
+    List<Role> findByNameIn(Collection<String> names);
 }
@@ -1,11 +1,49 @@
 package com.example.enterpriseapp.repository;
 
 import com.example.enterpriseapp.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    // Uživatel i s rolemi v jednom SELECTu (EAGER kolekce by jinak šla druhým dotazem)
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesByUsername(String username);
+
+    // Přímé zápisy bez načtení entity; updated_at se posouvá ručně (mění verzi uživatele)
+    @Modifying
+    @Query("update User u set u.email = :email, u.updatedAt = :updatedAt where u.id = :id")
+    int updateEmail(@Param("id") Long id, @Param("email") String email, @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Podmínka na původní hash - souběžná změna hesla vrátí 0 řádků; tokensValidAfter odvolá všechny
+    // dosud vydané tokeny uživatele (AccessTokenDenylist) ve stejném příkazu
+    @Modifying
+    @Query("update User u set u.password = :password, u.updatedAt = :updatedAt, u.tokensValidAfter = :tokensValidAfter "
+            + "where u.id = :id and u.password = :expectedPassword")
+    int updatePassword(@Param("id") Long id, @Param("password") String password,
+                       @Param("expectedPassword") String expectedPassword, @Param("updatedAt") LocalDateTime updatedAt,
+                       @Param("tokensValidAfter") LocalDateTime tokensValidAfter);
+
+    // Řádky users_roles smaže Hibernate sám (bulk delete nad vlastníkem @ManyToMany)
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
+
+    // Read model jedním dotazem: [id, username, email, updatedAt, roleName] - řádek na roli, bez hesla a bez entit
+    @Query("select u.id, u.username, u.email, u.updatedAt, r.name from User u left join u.roles r where u.username = :username")
+    List<Object[]> findInfoRowsByUsername(@Param("username") String username);
+
+    // Role pro celou stránku výpisu jedním dotazem: [userId, roleName]
+    @Query("select u.id, r.name from User u join u.roles r where u.id in :ids")
+    List<Object[]> findRoleNamesByUserIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,115 @@
+package com.example.enterpriseapp.security;
+
+import com.example.enterpriseapp.common.TimingWheel;
+import com.example.enterpriseapp.service.UserCache;
+import com.example.enterpriseapp.service.UserSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Odvolané access tokeny (podle jti) a per-user "not-before" (users.tokens_valid_after).
+ * <p>
+ * Odvolání všech tokenů uživatele (změna hesla, smazání účtu) je sdílené: not-before
+ * je sloupec v DB, kontroluje se proti snapshotu z UserCache, takže přežije restart
+ * a ostatní uzly ho uvidí nejpozději po app.user-cache.ttl (uzel, který odvolával,
+ * invaliduje cache hned po commitu). Smazaný uživatel nemá snapshot - jeho tokeny
+ * neprojdou vůbec.
+ * <p>
+ * Odvolání jednoho tokenu (logout) je jen lokální pro uzel a restart ho zapomene:
+ * drží se v ConcurrentHashMap do exp tokenu (úklid časovým kolem, požadavky nic
+ * nestojí). Sdílená část logoutu je odvolání rodiny refresh tokenů v DB, odhlášený
+ * access token tak jinde dožije nejvýš app.jwt.access-expiration.
+ */
+@Component
+public class AccessTokenDenylist {
+
+    private final Map<String, Long> revokedTokenIds = new ConcurrentHashMap<>();
+    private final TimingWheel<Runnable> expirations;
+    private final ReentrantLock expirationsLock = new ReentrantLock();
+    private final UserCache userCache;
+
+    public AccessTokenDenylist(@Value("${app.jwt.denylist.tick-ms:1000}") long tickMillis,
+                               MeterRegistry meterRegistry,
+                               UserCache userCache) {
+        this.expirations = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        this.userCache = userCache;
+        Gauge.builder("jwt.denylist.size", revokedTokenIds, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Kontrola tokenu, k jehož uživateli ještě nemáme snapshot (stateless principal, refresh).
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        if (isRevokedLocally(token)) {
+            return true;
+        }
+        return token.getUserId() == null || !isValidFor(token, userCache.findById(token.getUserId()));
+    }
+
+    /**
+     * Kontrola tokenu proti už načtenému snapshotu jeho uživatele (null = uživatel neexistuje).
+     */
+    public boolean isRevoked(VerifiedToken token, UserSnapshot user) {
+        return isRevokedLocally(token) || !isValidFor(token, user);
+    }
+
+    /**
+     * Hodnota users.tokens_valid_after pro odvolání v daném okamžiku - oříznutá na sekundy jako iat.
+     */
+    public static LocalDateTime notBefore(long nowMillis) {
+        return LocalDateTime.ofEpochSecond(nowMillis / 1000, 0, ZoneOffset.UTC);
+    }
+
+    private boolean isRevokedLocally(VerifiedToken token) {
+        String tokenId = token.getTokenId();
+        return tokenId != null && revokedTokenIds.containsKey(tokenId);
+    }
+
+    // iat má sekundovou přesnost: platí tokeny vydané v sekundě odvolání a později. Projde tak i token
+    // vydaný ve stejné sekundě těsně před odvoláním, nové přihlášení hned po změně hesla ale ano.
+    private static boolean isValidFor(VerifiedToken token, UserSnapshot user) {
+        if (user == null) {
+            return false;
+        }
+        LocalDateTime validAfter = user.getTokensValidAfter();
+        return validAfter == null || validAfter.toEpochSecond(ZoneOffset.UTC) <= token.getIssuedAtMillis() / 1000;
+    }
+
+    /**
+     * Odvolá jeden token do jeho expirace (logout).
+     */
+    public void revoke(VerifiedToken token) {
+        String tokenId = token.getTokenId();
+        long expiresAt = token.getExpiresAtMillis();
+        if (tokenId == null || token.isExpired(System.currentTimeMillis())) {
+            return;
+        }
+        expirationsLock.lock();
+        try {
+            if (expirations.schedule(() -> revokedTokenIds.remove(tokenId, expiresAt), expiresAt)) {
+                revokedTokenIds.put(tokenId, expiresAt);
+            }
+        } finally {
+            expirationsLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.jwt.denylist.tick-ms:1000}")
+    public void expire() {
+        expirationsLock.lock();
+        try {
+            expirations.advance(System.currentTimeMillis(), Runnable::run);
+        } finally {
+            expirationsLock.unlock();
+        }
+    }
+}
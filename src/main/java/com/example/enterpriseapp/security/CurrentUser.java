@@ -0,0 +1,60 @@
+package com.example.enterpriseapp.security;
+
+import com.example.enterpriseapp.exception.CustomException;
+import com.example.enterpriseapp.service.UserCache;
+import com.example.enterpriseapp.service.UserSnapshot;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Přihlášený uživatel pro jeden požadavek. Plní ho JwtAuthenticationFilter snapshotem,
+ * který už načetl kvůli autentizaci, takže controllery ani služby ho znovu nehledají.
+ * U bezstavového principalu (JwtUserPrincipal) se snapshot dotáhne z UserCache při prvním použití.
+ */
+@Component
+@RequestScope
+public class CurrentUser {
+
+    private final UserCache userCache;
+    private UserSnapshot user;
+
+    public CurrentUser(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    public void set(UserSnapshot user) {
+        this.user = user;
+    }
+
+    public UserSnapshot get() {
+        if (user == null) {
+            user = load();
+        }
+        return user;
+    }
+
+    public Long getId() {
+        return get().getId();
+    }
+
+    private UserSnapshot load() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Object principal = authentication != null ? authentication.getPrincipal() : null;
+        UserSnapshot snapshot = null;
+        if (principal instanceof CustomUserDetails details) {
+            snapshot = details.getUser();
+        } else if (principal instanceof JwtUserPrincipal jwtPrincipal && jwtPrincipal.getUserId() != null) {
+            snapshot = userCache.findById(jwtPrincipal.getUserId());
+        } else if (principal instanceof UserDetails details) {
+            snapshot = userCache.findByUsername(details.getUsername());
+        }
+        if (snapshot == null) {
+            // Token je platný, ale účet mezitím zmizel
+            throw new CustomException(401, "User not found");
+        }
+        return snapshot;
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.enterpriseapp.security;
 
-import com.example.enterpriseapp.entity.User;
+import com.example.enterpriseapp.service.UserSnapshot;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -9,20 +9,20 @@ import java.util.stream.Collectors;
 
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private final UserSnapshot user;
 
-    public CustomUserDetails(User user) {
+    public CustomUserDetails(UserSnapshot user) {
         this.user = user;
     }
 
-    public User getUser() {
+    public UserSnapshot getUser() {
         return user;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return user.getRoles().stream()
-                .map(role -> (GrantedAuthority) role::getName)
+                .map(role -> (GrantedAuthority) () -> role)
                 .collect(Collectors.toList());
     }
 
@@ -0,0 +1,25 @@
+package com.example.enterpriseapp.security;
+
+/**
+ * Rozptýlení hashe pro sketche (LoginThrottle, RateLimitBuckets) - fmix32 z MurmurHash3.
+ * Každý řádek sketche má vlastní seed, aby kolize v jednom řádku neznamenala kolizi ve všech.
+ */
+final class HashMixer {
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    static final int MAX_ROWS = SEEDS.length;
+
+    private HashMixer() {
+    }
+
+    static int mix(int hash, int row) {
+        int h = hash ^ SEEDS[row];
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -24,11 +24,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final UserDetailsService userDetailsService;
+    private final boolean statelessPrincipal;
+    private final AccessTokenDenylist denylist;
+    private final CurrentUser currentUser;
 
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService, boolean statelessPrincipal,
+                                   AccessTokenDenylist denylist, CurrentUser currentUser) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.statelessPrincipal = statelessPrincipal;
+        this.denylist = denylist;
+        this.currentUser = currentUser;
     }
 
     @Override
@@ -40,21 +47,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String authHeader = request.getHeader("Authorization");
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String jwt = authHeader.substring(7);
-                String username = jwtUtil.extractUsername(jwt);
+                // Jediné ověření podpisu i expirace (případně z cache nebo už z RateLimitFilter)
+                Object verified = request.getAttribute(RateLimitFilter.VERIFIED_TOKEN_ATTRIBUTE);
+                VerifiedToken token = verified instanceof VerifiedToken cached ? cached : jwtUtil.verify(jwt);
+                if (token.isRefreshToken()) {
+                    // Refresh token slouží jen pro /api/auth/refresh
+                    sendErrorResponse(response, 401, 40100, "Invalid authentication token.");
+                    return;
+                }
+                String username = token.getUsername();
 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    if (jwtUtil.isTokenValid(jwt)) {
+                    UserDetails userDetails;
+                    boolean revoked;
+                    if (statelessPrincipal && token.hasRoles()) {
+                        // Role nese samotný token; not-before uživatele se bere z UserCache
+                        userDetails = new JwtUserPrincipal(token);
+                        revoked = denylist.isRevoked(token);
+                    } else {
                         // Načteme userDetails včetně rolí
-                        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        userDetails = userDetailsService.loadUserByUsername(username);
+                        if (userDetails instanceof CustomUserDetails details) {
+                            // Snapshot už máme - controllery ho převezmou z CurrentUser
+                            currentUser.set(details.getUser());
+                            revoked = denylist.isRevoked(token, details.getUser());
+                        } else {
+                            revoked = denylist.isRevoked(token);
+                        }
                     }
+                    if (revoked) {
+                        // Odhlášení nebo vynucené odhlášení (změna hesla, smazání účtu)
+                        sendErrorResponse(response, 401, 40102, "JWT token revoked. Please log in again.");
+                        return;
+                    }
+
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                    );
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
 
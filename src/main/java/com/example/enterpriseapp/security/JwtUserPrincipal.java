@@ -0,0 +1,51 @@
+package com.example.enterpriseapp.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lehký principal sestavený přímo z claimů access tokenu, bez dotazu do databáze.
+ */
+public class JwtUserPrincipal implements UserDetails {
+
+    private final Long userId;
+    private final String username;
+    private final long userVersion;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtUserPrincipal(VerifiedToken token) {
+        this.userId = token.getUserId();
+        this.username = token.getUsername();
+        this.userVersion = token.getUserVersion();
+        this.authorities = token.getRoles().stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                .toList();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getUserVersion() {
+        return userVersion;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+}
@@ -1,52 +1,129 @@
 package com.example.enterpriseapp.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
-    private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    static final String CLAIM_USER_ID = "userId";
+    static final String CLAIM_ROLES = "roles";
+    static final String CLAIM_USER_VERSION = "ver";
+    static final String CLAIM_FAMILY = "fam";
+
+    private final JwtKeyManager keyManager;
+
+    // Parser je immutable a thread-safe, stačí ho sestavit jednou; klíč vybírá podle kid z hlavičky
+    private final JwtParser parser;
 
     private final long accessExpirationMillis;
     private final long refreshExpirationMillis;
+    private final VerifiedTokenCache tokenCache;
 
     public JwtUtil(@Value("${app.jwt.access-expiration}") long accessExpirationMillis,
-                   @Value("${app.jwt.refresh-expiration}") long refreshExpirationMillis) {
+                   @Value("${app.jwt.refresh-expiration}") long refreshExpirationMillis,
+                   VerifiedTokenCache tokenCache,
+                   JwtKeyManager keyManager) {
         this.accessExpirationMillis = accessExpirationMillis;
         this.refreshExpirationMillis = refreshExpirationMillis;
+        this.tokenCache = tokenCache;
+        this.keyManager = keyManager;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyManager.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new SignatureException("Unknown JWT signing key: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
     }
 
     public String generateAccessToken(String username, Long userId) {
-        return generateToken(username, userId, accessExpirationMillis);
+        return generateToken(username, userId, null, 0L, newTokenId(), null, accessExpirationMillis);
     }
 
-    public String generateRefreshToken(String username, Long userId) {
-        return generateToken(username, userId, refreshExpirationMillis);
+    /**
+     * Access token nesoucí i role a verzi uživatele, aby šel principal sestavit bez databáze.
+     */
+    public String generateAccessToken(String username, Long userId, Collection<String> roles, long userVersion) {
+        return generateToken(username, userId, List.copyOf(roles), userVersion, newTokenId(), null, accessExpirationMillis);
     }
 
-    private String generateToken(String username, Long userId, long expirationMillis) {
+    /**
+     * Refresh token nese id záznamu v RefreshTokenService a rodinu, do které patří.
+     */
+    public String generateRefreshToken(String username, Long userId, String tokenId, String familyId) {
+        return generateToken(username, userId, null, 0L, tokenId, familyId, refreshExpirationMillis);
+    }
+
+    private String generateToken(String username, Long userId, List<String> roles, long userVersion,
+                                 String tokenId, String familyId, long expirationMillis) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expirationMillis);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
-                .claim("userId", userId)
+                .claim(CLAIM_USER_ID, userId)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(key)
-                .compact();
+                .setExpiration(expiryDate);
+        if (roles != null) {
+            builder.claim(CLAIM_ROLES, roles)
+                    .claim(CLAIM_USER_VERSION, userVersion);
+        }
+        if (tokenId != null) {
+            builder.setId(tokenId);
+        }
+        if (familyId != null) {
+            builder.claim(CLAIM_FAMILY, familyId);
+        }
+        JwtKeyManager.SigningKey signingKey = keyManager.signingKey();
+        if (signingKey.getKid() != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid());
+        }
+        return builder.signWith(signingKey.getKey(), signingKey.getAlgorithm()).compact();
+    }
+
+    // jti access tokenu - podle něj ho jde před expirací odvolat (AccessTokenDenylist)
+    private static String newTokenId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Ověří podpis a expiraci tokenu právě jednou. Opakovaně posílané tokeny
+     * se vrací z cache bez další kryptografie.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = VerifiedTokenCache.digest(token);
+        VerifiedToken cached = tokenCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        VerifiedToken verified = VerifiedToken.from(claims);
+        tokenCache.put(digest, verified);
+        return verified;
     }
 
     public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+        return verify(token).getUsername();
     }
 
     /*public Long extractUserId(String token) {
@@ -64,34 +141,14 @@ public class JwtUtil {
     }*/
 
     public Long extractUserId(String token) {
-        return Long.parseLong(
-                Jwts.parserBuilder()
-                        .setSigningKey(key)
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody()
-                        .get("userId", String.class)
-        );
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private boolean isTokenExpired(String token) {
-        Date expiration = extractAllClaims(token).getExpiration();
-        return expiration.before(new Date());
+        return verify(token).getUserId();
     }
 
     public boolean isTokenValid(String token) {
         try {
-            return !isTokenExpired(token);
+            return !verify(token).isExpired(System.currentTimeMillis());
         } catch (Exception e) {
             return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,180 @@
+package com.example.enterpriseapp.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Omezení pokusů o přihlášení ještě před BCryptem.
+ * <p>
+ * Neúspěšné pokusy se počítají zvlášť podle username a podle IP v klouzavém okně
+ * (app.login-throttle.window). Po překročení limitu je další pokus povolen až po
+ * prodlevě base-delay * 2^(nadlimitní pokusy), nejvýš max-delay.
+ * <p>
+ * Čítače jsou count-min sketch nad AtomicLongArray - pevná paměť bez ohledu na počet
+ * klíčů, bez zámků a bez alokací. Kolize mohou počet jen nadhodnotit, nikdy podhodnotit.
+ */
+@Component
+public class LoginThrottle {
+
+    private final boolean enabled;
+    private final Clock clock;
+    private final long windowMillis;
+    private final int maxFailuresPerUser;
+    private final int maxFailuresPerIp;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final FailureSketch byUsername;
+    private final FailureSketch byIp;
+    private final Counter rejected;
+
+    @Autowired
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${app.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${app.login-throttle.window:15m}") Duration window,
+                         @Value("${app.login-throttle.max-failures-per-user:5}") int maxFailuresPerUser,
+                         @Value("${app.login-throttle.max-failures-per-ip:50}") int maxFailuresPerIp,
+                         @Value("${app.login-throttle.base-delay:1s}") Duration baseDelay,
+                         @Value("${app.login-throttle.max-delay:15m}") Duration maxDelay,
+                         @Value("${app.login-throttle.sketch-width:16384}") int sketchWidth) {
+        this(meterRegistry, Clock.systemUTC(), enabled, window, maxFailuresPerUser, maxFailuresPerIp, baseDelay, maxDelay, sketchWidth);
+    }
+
+    LoginThrottle(MeterRegistry meterRegistry, Clock clock, boolean enabled, Duration window,
+                  int maxFailuresPerUser, int maxFailuresPerIp, Duration baseDelay, Duration maxDelay, int sketchWidth) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.maxFailuresPerUser = maxFailuresPerUser;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.byUsername = new FailureSketch(sketchWidth);
+        this.byIp = new FailureSketch(sketchWidth);
+        this.rejected = Counter.builder("login.throttle.rejected").register(meterRegistry);
+    }
+
+    /**
+     * Vrací 0, pokud pokus smí pokračovat, jinak počet sekund do dalšího povoleného pokusu.
+     */
+    public long retryAfterSeconds(String username, String ipAddress) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = clock.millis();
+        long waitMillis = Math.max(
+                waitMillis(byUsername, hash(username), maxFailuresPerUser, now),
+                waitMillis(byIp, hash(ipAddress), maxFailuresPerIp, now));
+        if (waitMillis <= 0) {
+            return 0;
+        }
+        rejected.increment();
+        return (waitMillis + 999) / 1000;
+    }
+
+    public void recordFailure(String username, String ipAddress) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.millis();
+        byUsername.increment(hash(username), now, windowMillis);
+        byIp.increment(hash(ipAddress), now, windowMillis);
+    }
+
+    private long waitMillis(FailureSketch sketch, int hash, int maxFailures, long now) {
+        long failures = sketch.estimate(hash, now, windowMillis);
+        if (failures < maxFailures) {
+            return 0;
+        }
+        long exponent = Math.min(failures - maxFailures, 30);
+        long delay = Math.min(baseDelayMillis << exponent, maxDelayMillis);
+        return sketch.lastFailure(hash) + delay - now;
+    }
+
+    // String.hashCode je v instanci uložený, nic se nealokuje
+    private static int hash(String key) {
+        return key != null ? key.hashCode() : 0;
+    }
+
+    /**
+     * Count-min sketch s klouzavým oknem. Buňka: [24 b číslo okna][20 b předchozí okno][20 b aktuální okno].
+     * Vedle ní čas posledního neúspěchu (maximum přes klíče, které do buňky padnou).
+     */
+    static final class FailureSketch {
+
+        private static final int DEPTH = HashMixer.MAX_ROWS;
+        private static final long COUNT_MASK = (1L << 20) - 1;
+        private static final long WINDOW_MASK = (1L << 24) - 1;
+
+        private final int widthMask;
+        private final AtomicLongArray counts;
+        private final AtomicLongArray lastFailures;
+
+        FailureSketch(int width) {
+            int size = Integer.highestOneBit(Math.max(width, 16));
+            this.widthMask = size - 1;
+            this.counts = new AtomicLongArray(size * DEPTH);
+            this.lastFailures = new AtomicLongArray(size * DEPTH);
+        }
+
+        void increment(int hash, long now, long windowMillis) {
+            long window = (now / windowMillis) & WINDOW_MASK;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                long cell;
+                long updated;
+                do {
+                    cell = counts.get(index);
+                    long counters = rolled(cell, window);
+                    long current = Math.min((counters & COUNT_MASK) + 1, COUNT_MASK);
+                    updated = (window << 40) | (counters & (COUNT_MASK << 20)) | current;
+                } while (!counts.compareAndSet(index, cell, updated));
+                lastFailures.accumulateAndGet(index, now, Math::max);
+            }
+        }
+
+        long estimate(int hash, long now, long windowMillis) {
+            long window = (now / windowMillis) & WINDOW_MASK;
+            // Váha předchozího okna klesá lineárně s tím, jak aktuální okno ubíhá
+            long remaining = windowMillis - now % windowMillis;
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                long cell = rolled(counts.get(index(hash, row)), window);
+                long current = cell & COUNT_MASK;
+                long previous = (cell >>> 20) & COUNT_MASK;
+                min = Math.min(min, current + previous * remaining / windowMillis);
+            }
+            return min;
+        }
+
+        long lastFailure(int hash) {
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, lastFailures.get(index(hash, row)));
+            }
+            return min;
+        }
+
+        // Buňka posunutá do okna window: počty bez čísla okna, (předchozí << 20) | aktuální
+        private static long rolled(long cell, long window) {
+            long cellWindow = cell >>> 40;
+            if (cellWindow == window) {
+                return cell & ((1L << 40) - 1);
+            }
+            if (cellWindow == ((window - 1) & WINDOW_MASK)) {
+                return (cell & COUNT_MASK) << 20;
+            }
+            return 0;
+        }
+
+        private int index(int hash, int row) {
+            return row * (widthMask + 1) + (HashMixer.mix(hash, row) & widthMask);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.enterpriseapp.security;
+
+import com.example.enterpriseapp.exception.RetryLaterException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Samostatný omezený pool pro BCrypt (hashování i ověřování hesel).
+ * <p>
+ * Nápor přihlášení tak vytíží nejvýš app.password-hashing.threads jader a nebere
+ * vlákna levným endpointům. Při plné frontě se požadavek hned odmítne s 503 a Retry-After.
+ * Metriky: password.hashing.queue.wait (čekání ve frontě) a password.hashing.execution (běh úlohy).
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Timer queueWait;
+    private final Timer execution;
+
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   @Value("${app.password-hashing.threads:0}") int threads,
+                                   @Value("${app.password-hashing.queue-capacity:100}") int queueCapacity,
+                                   @Value("${app.password-hashing.retry-after:1s}") Duration retryAfter) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new HashingThread(runnable, "password-hashing-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+
+        this.queueWait = Timer.builder("password.hashing.queue.wait").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.execution = Timer.builder("password.hashing.execution").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    /**
+     * Spustí úlohu v poolu. Při plné frontě vyhodí RetryLaterException hned, ještě ve
+     * vlákně volajícího.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    execution.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new RetryLaterException(503, retryAfterSeconds, "Server is busy, try again later");
+        }
+        return future;
+    }
+
+    /**
+     * Synchronní varianta pro místa, kde se na výsledek čeká (OffloadedPasswordEncoder). Ve vlákně
+     * poolu se úloha spustí rovnou.
+     */
+    public <T> T call(Supplier<T> task) {
+        if (isHashingThread()) {
+            return task.get();
+        }
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public static boolean isHashingThread() {
+        return Thread.currentThread() instanceof HashingThread;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class HashingThread extends Thread {
+        private HashingThread(Runnable runnable, String name) {
+            super(runnable, name);
+            setDaemon(true);
+        }
+    }
+}
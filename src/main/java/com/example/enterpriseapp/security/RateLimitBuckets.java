@@ -0,0 +1,56 @@
+package com.example.enterpriseapp.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token buckety pro libovolný počet klíčů v pevné paměti (GCRA - uchovává se jen
+ * teoretický čas příchodu dalšího požadavku, doplňování je implicitní).
+ * <p>
+ * Klíč se hashuje do dvou řádků a jeho odhad je minimum z obou (count-min) - cizí
+ * klíč ho zpomalí, jen když s ním koliduje v obou řádcích. Řádky se posouvají
+ * konzervativně (jen na nový odhad, ne o interval navíc), takže žádný řádek
+ * neklesne pod skutečný stav klíče a kolize limit nikdy nezmírní.
+ * Kontrola a posun jsou dva kroky bez zámku, pod souběhem tak může projít
+ * o pár požadavků víc než burst.
+ */
+final class RateLimitBuckets {
+
+    private static final int DEPTH = 2;
+
+    private final int widthMask;
+    private final AtomicLongArray arrivals;
+
+    RateLimitBuckets(int width) {
+        int size = Integer.highestOneBit(Math.max(width, 16));
+        this.widthMask = size - 1;
+        this.arrivals = new AtomicLongArray(size * DEPTH);
+    }
+
+    /**
+     * Vrací 0, pokud požadavek projde (a spotřebuje token), jinak počet ns do uvolnění.
+     * now musí být monotónní čas v ns.
+     */
+    long tryAcquire(int hash, long now, long intervalNanos, long toleranceNanos) {
+        int first = index(hash, 0);
+        int second = index(hash, 1);
+        long arrival = Math.max(Math.min(arrivals.get(first), arrivals.get(second)), now);
+        long wait = arrival - now - toleranceNanos;
+        if (wait > 0) {
+            return wait;
+        }
+        advance(first, arrival + intervalNanos);
+        advance(second, arrival + intervalNanos);
+        return 0;
+    }
+
+    private void advance(int index, long next) {
+        long current;
+        do {
+            current = arrivals.get(index);
+        } while (current < next && !arrivals.compareAndSet(index, current, next));
+    }
+
+    private int index(int hash, int row) {
+        return row * (widthMask + 1) + (HashMixer.mix(hash, row) & widthMask);
+    }
+}
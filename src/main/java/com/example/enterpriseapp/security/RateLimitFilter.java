@@ -0,0 +1,180 @@
+package com.example.enterpriseapp.security;
+
+import com.example.enterpriseapp.common.ApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Omezení rychlosti na klienta před celým řetězcem (i před RequestLoggingFilter).
+ * <p>
+ * Limity (požadavky za sekundu + burst) platí zvlášť pro IP adresu, pro přihlášeného
+ * uživatele (userId z JWT) a pro skupiny cest podle prefixu
+ * (app.rate-limit.routes=/api/auth/:10:20,... - limit na klienta v dané skupině).
+ * Odmítnutý požadavek dostane 429 s předem serializovaným ApiResponse a Retry-After.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /** Ověřený token z hlavičky - JwtAuthenticationFilter ho převezme a nepočítá znovu. */
+    static final String VERIFIED_TOKEN_ATTRIBUTE = RateLimitFilter.class.getName() + ".verifiedToken";
+
+    public static final class Limit {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        public Limit(double requestsPerSecond, int burst) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+            this.toleranceNanos = intervalNanos * (Math.max(burst, 1) - 1);
+        }
+    }
+
+    private static final class RouteGroup {
+        private final String prefix;
+        private final int id;
+        private final Limit limit;
+
+        private RouteGroup(String prefix, int id, Limit limit) {
+            this.prefix = prefix;
+            this.id = id;
+            this.limit = limit;
+        }
+    }
+
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final Limit perIp;
+    private final Limit perUser;
+    private final RouteGroup[] routes;
+    private final RateLimitBuckets ipBuckets;
+    private final RateLimitBuckets userBuckets;
+    private final RateLimitBuckets routeBuckets;
+    private final long timeBase = System.nanoTime();
+    private final byte[] rejectedBody;
+    private final Counter rejectedByIp;
+    private final Counter rejectedByUser;
+    private final Counter rejectedByRoute;
+
+    public RateLimitFilter(JwtUtil jwtUtil, MeterRegistry meterRegistry, boolean enabled,
+                           Limit perIp, Limit perUser, String routes, int bucketsWidth) {
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.perIp = perIp;
+        this.perUser = perUser;
+        this.routes = parseRoutes(routes);
+        this.ipBuckets = new RateLimitBuckets(bucketsWidth);
+        this.userBuckets = new RateLimitBuckets(bucketsWidth);
+        this.routeBuckets = new RateLimitBuckets(bucketsWidth);
+        try {
+            this.rejectedBody = new ObjectMapper().writeValueAsBytes(ApiResponse.error(429, "Too many requests"));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.rejectedByIp = Counter.builder("rate.limit.rejected").tag("dimension", "ip").register(meterRegistry);
+        this.rejectedByUser = Counter.builder("rate.limit.rejected").tag("dimension", "user").register(meterRegistry);
+        this.rejectedByRoute = Counter.builder("rate.limit.rejected").tag("dimension", "route").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long now = System.nanoTime() - timeBase;
+        int ipHash = request.getRemoteAddr().hashCode();
+
+        long wait = ipBuckets.tryAcquire(ipHash, now, perIp.intervalNanos, perIp.toleranceNanos);
+        if (wait > 0) {
+            reject(response, wait, rejectedByIp);
+            return;
+        }
+
+        Long userId = resolveUserId(request);
+        if (userId != null) {
+            wait = userBuckets.tryAcquire(Long.hashCode(userId), now, perUser.intervalNanos, perUser.toleranceNanos);
+            if (wait > 0) {
+                reject(response, wait, rejectedByUser);
+                return;
+            }
+        }
+
+        RouteGroup route = matchRoute(request.getRequestURI());
+        if (route != null) {
+            // Klientem je uživatel, nepřihlášený požadavek se počítá za IP
+            int clientHash = userId != null ? Long.hashCode(userId) : ipHash;
+            wait = routeBuckets.tryAcquire(clientHash * 31 + route.id, now, route.limit.intervalNanos, route.limit.toleranceNanos);
+            if (wait > 0) {
+                reject(response, wait, rejectedByRoute);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Long resolveUserId(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            VerifiedToken token = jwtUtil.verify(authHeader.substring(7));
+            request.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, token);
+            return token.getUserId();
+        } catch (Exception e) {
+            // Neplatný token odmítne až JwtAuthenticationFilter, tady se počítá jen IP
+            return null;
+        }
+    }
+
+    private RouteGroup matchRoute(String uri) {
+        for (RouteGroup route : routes) {
+            if (uri.startsWith(route.prefix)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos, Counter counter) throws IOException {
+        counter.increment();
+        response.setStatus(429);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        response.setContentLength(rejectedBody.length);
+        response.getOutputStream().write(rejectedBody);
+    }
+
+    // Formát: prefix:požadavků za sekundu:burst, oddělené čárkou; první shoda vyhrává
+    private static RouteGroup[] parseRoutes(String value) {
+        List<RouteGroup> groups = new ArrayList<>();
+        if (value != null && !value.isBlank()) {
+            for (String entry : value.split(",")) {
+                String[] parts = entry.trim().split(":");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Invalid rate limit route (expected prefix:rate:burst): " + entry);
+                }
+                groups.add(new RouteGroup(parts[0], groups.size() + 1,
+                        new Limit(Double.parseDouble(parts[1]), Integer.parseInt(parts[2]))));
+            }
+        }
+        return groups.toArray(new RouteGroup[0]);
+    }
+}
@@ -1,31 +1,48 @@
 package com.example.enterpriseapp.security;
 
+import com.example.enterpriseapp.audit.AccessLogAggregator;
+import com.example.enterpriseapp.audit.AccessLogMode;
 import com.example.enterpriseapp.entity.AuditLog;
 import com.example.enterpriseapp.entity.LogLevel;
-import com.example.enterpriseapp.repository.AuditLogRepository;
+import com.example.enterpriseapp.service.AuditService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class RequestLoggingFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestLoggingFilter.class);
 
-    private final AuditLogRepository auditLogRepository;
+    private final AuditService auditService;
+    private final AccessLogAggregator accessLogAggregator;
+    private final AccessLogMode mode;
+    private final double errorSampleRate;
 
-    public RequestLoggingFilter(AuditLogRepository auditLogRepository) {
-        this.auditLogRepository = auditLogRepository;
+    public RequestLoggingFilter(AuditService auditService,
+                                AccessLogAggregator accessLogAggregator,
+                                @Value("${app.audit.access-log.mode:FULL}") AccessLogMode mode,
+                                @Value("${app.audit.access-log.error-sample-rate:1.0}") double errorSampleRate) {
+        this.auditService = auditService;
+        this.accessLogAggregator = accessLogAggregator;
+        this.mode = mode;
+        this.errorSampleRate = errorSampleRate;
     }
 
     @Override
@@ -38,18 +55,92 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
         String method = request.getMethod();
         String ipAddress = request.getRemoteAddr();
 
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        Long userId = null;
+        long start = System.nanoTime();
+        filterChain.doFilter(request, response);
+
+        // Autentizaci čteme až po průchodu řetězcem - JwtAuthenticationFilter běží za námi
+        Long userId = resolveUserId(SecurityContextHolder.getContext().getAuthentication());
+
+        if (request.isAsyncStarted()) {
+            // Odpověď dokončí jiné vlákno (CompletableFuture, streamovaný export) - status a délku známe až na konci.
+            // Timeout a chyba se zaznamenají hned (status odpovědi tou dobou ještě nemusí být nastavený),
+            // následné onComplete už ne.
+            AtomicBoolean recorded = new AtomicBoolean();
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    if (recorded.compareAndSet(false, true)) {
+                        record(request, response.getStatus(), method, path, ipAddress, userId, System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    if (recorded.compareAndSet(false, true)) {
+                        record(request, HttpServletResponse.SC_SERVICE_UNAVAILABLE, method, path, ipAddress, userId, System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    if (recorded.compareAndSet(false, true)) {
+                        int status = response.getStatus() >= 400 ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+                        record(request, status, method, path, ipAddress, userId, System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+            return;
+        }
+        record(request, response.getStatus(), method, path, ipAddress, userId, System.nanoTime() - start);
+    }
+
+    private void record(HttpServletRequest request, int status, String method, String path,
+                        String ipAddress, Long userId, long durationNanos) {
+        boolean isError = status >= 400;
+
+        if (mode == AccessLogMode.AGGREGATE) {
+            accessLogAggregator.record(method, resolvePathTemplate(request), status, userId, durationNanos);
+            // Chyby zůstávají v plném detailu (případně vzorkované)
+            if (isError && sampled(errorSampleRate)) {
+                auditService.log(createAccessLog(userId, method, path, ipAddress, true));
+            }
+        } else {
+            auditService.log(createAccessLog(userId, method, path, ipAddress, isError));
+        }
+
+        if (isError) {
+            logger.warn("Request to {} {} resulted in status {}", method, path, status);
+        } else if (mode == AccessLogMode.FULL) {
+            logger.info("Request to {} {} processed with status {}", method, path, status);
+        } else {
+            logger.debug("Request to {} {} processed with status {}", method, path, status);
+        }
+    }
 
+    private static Long resolveUserId(Authentication auth) {
         if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof CustomUserDetails customUser) {
-            userId = customUser.getUser().getId();
+            return customUser.getUser().getId();
+        } else if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof JwtUserPrincipal jwtUser) {
+            return jwtUser.getUserId();
         }
+        return null;
+    }
 
-        filterChain.doFilter(request, response);
+    // Šablona z mapování controlleru (/api/user/{username}), aby neexplodoval počet klíčů
+    private static String resolvePathTemplate(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "<unmatched>";
+    }
 
-        int status = response.getStatus();
-        boolean isError = status >= 400;
+    private static boolean sampled(double rate) {
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
 
+    private static AuditLog createAccessLog(Long userId, String method, String path, String ipAddress, boolean isError) {
         AuditLog log = new AuditLog();
         log.setTimestamp(LocalDateTime.now());
         log.setActorUserId(userId);
@@ -61,13 +152,6 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
         log.setActionType("ACCESS");
         log.setIpAddress(ipAddress);
         log.setLogLevel(isError ? LogLevel.WARN : LogLevel.INFO);
-
-        auditLogRepository.save(log);
-
-        if (isError) {
-            logger.warn("Request to {} {} resulted in status {}", method, path, status);
-        } else {
-            logger.info("Request to {} {} processed with status {}", method, path, status);
-        }
+        return log;
     }
 }
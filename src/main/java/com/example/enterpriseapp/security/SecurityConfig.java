@@ -1,7 +1,12 @@
 package com.example.enterpriseapp.security;
 
-import com.example.enterpriseapp.repository.UserRepository;
-import com.example.enterpriseapp.repository.AuditLogRepository;
+import com.example.enterpriseapp.audit.AccessLogAggregator;
+import com.example.enterpriseapp.audit.AccessLogMode;
+import com.example.enterpriseapp.service.AuditService;
+import com.example.enterpriseapp.service.UserCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,22 +28,27 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
-    private final AuditLogRepository auditLogRepository;
+    private final AuditService auditService;
 
-    public SecurityConfig(JwtUtil jwtUtil, AuditLogRepository auditLogRepository) {
+    public SecurityConfig(JwtUtil jwtUtil, AuditService auditService) {
         this.jwtUtil = jwtUtil;
-        this.auditLogRepository = auditLogRepository;
+        this.auditService = auditService;
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter,
+                                                   RequestLoggingFilter requestLoggingFilter,
+                                                   RateLimitFilter rateLimitFilter) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(customAuthenticationEntryPoint()))
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatch (streamované odpovědi) patří k již autorizovanému požadavku
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/",
                                 "/api/auth/**",
+                                "/.well-known/jwks.json",
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
@@ -52,7 +62,8 @@ public class SecurityConfig {
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-                .addFilterBefore(requestLoggingFilter(), JwtAuthenticationFilter.class)
+                .addFilterBefore(requestLoggingFilter, JwtAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, RequestLoggingFilter.class)
                 .formLogin(AbstractHttpConfigurer::disable)
                 .httpBasic(AbstractHttpConfigurer::disable);
 
@@ -74,13 +85,13 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor) {
+        return new OffloadedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashingExecutor);
     }
 
     @Bean
-    public UserDetailsService userDetailsService(UserRepository userRepository) {
-        return new CustomUserDetailsService(userRepository);
+    public UserDetailsService userDetailsService(UserCache userCache) {
+        return new CustomUserDetailsService(userCache);
     }
 
     @Bean
@@ -98,8 +109,26 @@ public class SecurityConfig {
     }
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
-        return new JwtAuthenticationFilter(jwtUtil, userDetailsService);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService,
+                                                           @Value("${app.jwt.stateless-principal:false}") boolean statelessPrincipal,
+                                                           AccessTokenDenylist accessTokenDenylist,
+                                                           CurrentUser currentUser) {
+        return new JwtAuthenticationFilter(jwtUtil, userDetailsService, statelessPrincipal, accessTokenDenylist, currentUser);
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(MeterRegistry meterRegistry,
+                                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                                           @Value("${app.rate-limit.per-ip.rate:100}") double perIpRate,
+                                           @Value("${app.rate-limit.per-ip.burst:200}") int perIpBurst,
+                                           @Value("${app.rate-limit.per-user.rate:50}") double perUserRate,
+                                           @Value("${app.rate-limit.per-user.burst:100}") int perUserBurst,
+                                           @Value("${app.rate-limit.routes:}") String routes,
+                                           @Value("${app.rate-limit.buckets-width:16384}") int bucketsWidth) {
+        return new RateLimitFilter(jwtUtil, meterRegistry, enabled,
+                new RateLimitFilter.Limit(perIpRate, perIpBurst),
+                new RateLimitFilter.Limit(perUserRate, perUserBurst),
+                routes, bucketsWidth);
     }
 
     @Bean
@@ -108,7 +137,9 @@ public class SecurityConfig {
     }
 
     @Bean
-    public RequestLoggingFilter requestLoggingFilter() {
-        return new RequestLoggingFilter(auditLogRepository);
+    public RequestLoggingFilter requestLoggingFilter(AccessLogAggregator accessLogAggregator,
+                                                     @Value("${app.audit.access-log.mode:FULL}") AccessLogMode accessLogMode,
+                                                     @Value("${app.audit.access-log.error-sample-rate:1.0}") double errorSampleRate) {
+        return new RequestLoggingFilter(auditService, accessLogAggregator, accessLogMode, errorSampleRate);
     }
 }
@@ -0,0 +1,115 @@
+package com.example.enterpriseapp.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.List;
+
+/**
+ * Neměnný výsledek jednoho ověření JWT (podpis + expirace).
+ */
+public final class VerifiedToken {
+
+    private final String username;
+    private final Long userId;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+    private final List<String> roles;
+    private final long userVersion;
+    private final String tokenId;
+    private final String familyId;
+
+    public VerifiedToken(String username, Long userId, long issuedAtMillis, long expiresAtMillis,
+                         List<String> roles, long userVersion, String tokenId, String familyId) {
+        this.username = username;
+        this.userId = userId;
+        this.issuedAtMillis = issuedAtMillis;
+        this.expiresAtMillis = expiresAtMillis;
+        this.roles = roles != null ? List.copyOf(roles) : null;
+        this.userVersion = userVersion;
+        this.tokenId = tokenId;
+        this.familyId = familyId;
+    }
+
+    static VerifiedToken from(Claims claims) {
+        Long version = toLong(claims.get(JwtUtil.CLAIM_USER_VERSION));
+        return new VerifiedToken(
+                claims.getSubject(),
+                toLong(claims.get(JwtUtil.CLAIM_USER_ID)),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE,
+                toStringList(claims.get(JwtUtil.CLAIM_ROLES)),
+                version != null ? version : 0L,
+                claims.getId(),
+                claims.get(JwtUtil.CLAIM_FAMILY, String.class)
+        );
+    }
+
+    private static List<String> toStringList(Object value) {
+        if (value instanceof List<?> list) {
+            return list.stream().map(String::valueOf).toList();
+        }
+        return null;
+    }
+
+    static Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        } else if (value instanceof String string) {
+            return Long.parseLong(string);
+        }
+        return null;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getIssuedAtMillis() {
+        return issuedAtMillis;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Role z tokenu, nebo null pokud token role nenese (např. refresh token).
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public long getUserVersion() {
+        return userVersion;
+    }
+
+    /**
+     * jti tokenu, nebo null u tokenů vydaných bez něj.
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * Rodina refresh tokenu (všechny rotace jednoho přihlášení), u access tokenu null.
+     */
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public boolean isRefreshToken() {
+        return familyId != null;
+    }
+
+    public boolean hasRoles() {
+        return roles != null;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
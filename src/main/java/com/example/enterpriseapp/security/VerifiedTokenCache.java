@@ -0,0 +1,99 @@
+package com.example.enterpriseapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Omezená cache již ověřených tokenů. Klíčem je SHA-256 otisk tokenu,
+ * záznam platí nejdéle do expirace (exp) samotného tokenu.
+ * <p>
+ * Caffeine s expirací podle exp: plná cache vyhazuje podle frekvence (W-TinyLFU)
+ * v konstantním čase, expirované záznamy uklízí časové kolo - bez průchodu celé mapy.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> entries;
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(@Value("${app.jwt.cache.max-size:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxSize, 0))
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.getExpiresAtMillis() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.hits = Counter.builder("jwt.verification.cache")
+                .tag("result", "hit")
+                .description("Požadavky obsloužené bez kryptografického ověření")
+                .register(meterRegistry);
+        this.misses = Counter.builder("jwt.verification.cache")
+                .tag("result", "miss")
+                .description("Požadavky, které musely token ověřit")
+                .register(meterRegistry);
+        Gauge.builder("jwt.verification.cache.size", entries, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    public VerifiedToken get(String digest) {
+        VerifiedToken token = entries.getIfPresent(digest);
+        if (token == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return token;
+    }
+
+    public void put(String digest, VerifiedToken token) {
+        if (maxSize <= 0) {
+            return;
+        }
+        entries.put(digest, token);
+    }
+
+    public long getHitCount() {
+        return (long) hits.count();
+    }
+
+    public long getMissCount() {
+        return (long) misses.count();
+    }
+
+    public static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
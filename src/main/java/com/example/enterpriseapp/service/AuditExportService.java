@@ -0,0 +1,255 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.dto.AuditLogFilter;
+import com.example.enterpriseapp.exception.CustomException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export audit logu jako NDJSON nebo CSV přímo do výstupního streamu.
+ * <p>
+ * Řádky se čtou dopředným JDBC kurzorem po app.audit.export.fetch-size kusech,
+ * nevytváří se žádné entity a hned se zapisují,
+ * takže spotřeba paměti nezávisí na počtu řádků. Jde o obyčejný SELECT
+ * (konzistentní čtení InnoDB), tabulka se nezamyká.
+ * <p>
+ * Serverový kurzor MySQL (useCursorFetch=true) má jen vlastní malý pool exportu - v hlavní
+ * URL by z každého dotazu s fetch size udělal kurzor na serveru. Jiné databáze (H2 v testech)
+ * čtou přes hlavní DataSource.
+ */
+@Service
+public class AuditExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new CustomException(400, "Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private static final String[] COLUMNS = {
+            "id", "timestamp", "actor_user_id", "entity_name", "entity_id", "field_name",
+            "old_value", "new_value", "action_type", "ip_address", "log_level"
+    };
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final HikariDataSource cursorDataSource;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public AuditExportService(DataSource dataSource,
+                              DataSourceProperties dataSourceProperties,
+                              @Value("${app.audit.export.fetch-size:1000}") int fetchSize,
+                              @Value("${app.audit.export.max-connections:2}") int maxConnections) {
+        this.cursorDataSource = cursorDataSource(dataSourceProperties, maxConnections);
+        // Vlastní JdbcTemplate, aby fetch size neovlivnila ostatní dotazy
+        this.streamingJdbcTemplate = new JdbcTemplate(cursorDataSource != null ? cursorDataSource : dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // Stejné připojení jako hlavní pool, jen s useCursorFetch; null = databáze není MySQL
+    private static HikariDataSource cursorDataSource(DataSourceProperties properties, int maxConnections) {
+        String url = properties.getUrl();
+        if (url == null || !url.startsWith("jdbc:mysql:")) {
+            return null;
+        }
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url + (url.contains("?") ? "&" : "?") + "useCursorFetch=true")
+                .build();
+        dataSource.setPoolName("audit-export");
+        dataSource.setMaximumPoolSize(maxConnections);
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @PreDestroy
+    void close() {
+        if (cursorDataSource != null) {
+            cursorDataSource.close();
+        }
+    }
+
+    public void export(AuditLogFilter filter, Format format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, WRITE_BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + String.join(", ", COLUMNS) + " FROM audit_log" + where(filter, params) + " ORDER BY timestamp, id";
+
+        JsonGenerator json = null;
+        RowCallbackHandler rowWriter;
+        if (format == Format.NDJSON) {
+            json = jsonFactory.createGenerator(writer);
+            json.setRootValueSeparator(new SerializedString(""));
+            rowWriter = ndjsonWriter(json);
+        } else {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+            rowWriter = csvWriter(writer);
+        }
+        try {
+            streamingJdbcTemplate.query(sql, rowWriter, params.toArray());
+        } catch (UncheckedIOException e) {
+            // Typicky klient ukončil spojení
+            throw e.getCause();
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+    }
+
+    private RowCallbackHandler ndjsonWriter(JsonGenerator json) {
+        return rs -> {
+            try {
+                json.writeStartObject();
+                json.writeStringField("id", Long.toString(rs.getLong("id")));
+                json.writeStringField("timestamp", timestamp(rs));
+                writeNullableId(json, "actorUserId", rs, "actor_user_id");
+                json.writeStringField("entityName", rs.getString("entity_name"));
+                writeNullableId(json, "entityId", rs, "entity_id");
+                json.writeStringField("fieldName", rs.getString("field_name"));
+                json.writeStringField("oldValue", rs.getString("old_value"));
+                json.writeStringField("newValue", rs.getString("new_value"));
+                json.writeStringField("actionType", rs.getString("action_type"));
+                json.writeStringField("ipAddress", rs.getString("ip_address"));
+                json.writeStringField("logLevel", rs.getString("log_level"));
+                json.writeEndObject();
+                json.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private RowCallbackHandler csvWriter(Writer writer) {
+        return rs -> {
+            try {
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    String value = i == 1 ? timestamp(rs) : rs.getString(COLUMNS[i]);
+                    writeCsvValue(writer, value);
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static String where(AuditLogFilter filter, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getActorUserId() != null) {
+            conditions.add("actor_user_id = ?");
+            params.add(filter.getActorUserId());
+        }
+        if (filter.getEntityId() != null) {
+            conditions.add("entity_id = ?");
+            params.add(filter.getEntityId());
+        }
+        if (filter.getActionType() != null) {
+            conditions.add("action_type = ?");
+            params.add(filter.getActionType());
+        }
+        if (filter.getLogLevel() != null) {
+            conditions.add("log_level = ?");
+            params.add(filter.getLogLevel().name());
+        }
+        if (filter.getIpAddress() != null) {
+            conditions.add("ip_address = ?");
+            params.add(filter.getIpAddress());
+        }
+        if (filter.getFrom() != null) {
+            conditions.add("timestamp >= ?");
+            params.add(filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            conditions.add("timestamp < ?");
+            params.add(filter.getTo());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String timestamp(ResultSet rs) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp("timestamp");
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+
+    private static void writeNullableId(JsonGenerator json, String field, ResultSet rs, String column) throws IOException, SQLException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            json.writeNullField(field);
+        } else {
+            // Id jako řetězec - čísla nad 2^53 JavaScript nepřečte přesně
+            json.writeStringField(field, Long.toString(value));
+        }
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.audit.AuditArchive;
+import com.example.enterpriseapp.common.KeysetCursor;
+import com.example.enterpriseapp.dto.AuditLogFilter;
+import com.example.enterpriseapp.dto.AuditLogResponse;
+import com.example.enterpriseapp.dto.KeysetPage;
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.repository.AuditLogRepository;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Čtení audit logu s keyset stránkováním podle (timestamp, id) sestupně -
+ * cena stránky nezávisí na tom, jak hluboko v historii je. Když tabulka
+ * nestačí na celou stránku, zbytek se doplní z archivu (AuditArchive).
+ */
+@Service
+public class AuditQueryService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditArchive auditArchive;
+
+    public AuditQueryService(AuditLogRepository auditLogRepository, AuditArchive auditArchive) {
+        this.auditLogRepository = auditLogRepository;
+        this.auditArchive = auditArchive;
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<AuditLogResponse> search(AuditLogFilter filter, String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Specification<AuditLog> specification = toSpecification(filter, after);
+
+        // O jeden řádek navíc, abychom poznali, jestli existuje další stránka
+        List<AuditLog> rows = auditLogRepository.findBy(specification,
+                query -> query.sortBy(NEWEST_FIRST).limit(pageSize + 1).all());
+        if (rows.size() <= pageSize && auditArchive.isEnabled()) {
+            // Archiv obsahuje jen klíče starší než cokoli v tabulce
+            KeysetCursor archiveAfter = rows.isEmpty() ? after : cursorOf(rows.get(rows.size() - 1));
+            rows = new ArrayList<>(rows);
+            rows.addAll(auditArchive.search(filter, archiveAfter, pageSize + 1 - rows.size()));
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<AuditLogResponse> items = rows.stream()
+                .limit(pageSize)
+                .map(AuditLogResponse::from)
+                .toList();
+        String nextCursor = null;
+        if (hasMore) {
+            AuditLogResponse last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    private static KeysetCursor cursorOf(AuditLog log) {
+        return new KeysetCursor(log.getTimestamp(), log.getId());
+    }
+
+    static Specification<AuditLog> toSpecification(AuditLogFilter filter, KeysetCursor after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getActorUserId() != null) {
+                predicates.add(cb.equal(root.get("actorUserId"), filter.getActorUserId()));
+            }
+            if (filter.getEntityId() != null) {
+                predicates.add(cb.equal(root.get("entityId"), filter.getEntityId()));
+            }
+            if (filter.getActionType() != null) {
+                predicates.add(cb.equal(root.get("actionType"), filter.getActionType()));
+            }
+            if (filter.getLogLevel() != null) {
+                predicates.add(cb.equal(root.get("logLevel"), filter.getLogLevel()));
+            }
+            if (filter.getIpAddress() != null) {
+                predicates.add(cb.equal(root.get("ipAddress"), filter.getIpAddress()));
+            }
+            if (filter.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                predicates.add(cb.lessThan(root.get("timestamp"), filter.getTo()));
+            }
+            if (after != null) {
+                // (timestamp, id) < (:ts, :id)
+                predicates.add(cb.or(
+                        cb.lessThan(root.get("timestamp"), after.getTimestamp()),
+                        cb.and(
+                                cb.equal(root.get("timestamp"), after.getTimestamp()),
+                                cb.lessThan(root.get("id"), after.getId())
+                        )
+                ));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
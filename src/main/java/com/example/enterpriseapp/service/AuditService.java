@@ -1,11 +1,12 @@
 package com.example.enterpriseapp.service;
 
+import com.example.enterpriseapp.audit.AuditJournal;
+import com.example.enterpriseapp.audit.AuditPipeline;
 import org.springframework.stereotype.Service;
 import com.example.enterpriseapp.entity.AuditLog;
 import com.example.enterpriseapp.entity.LogLevel;
 import com.example.enterpriseapp.repository.AuditLogRepository;
 
-import java.math.BigInteger;
 import java.time.LocalDateTime;
 
 
@@ -13,9 +14,13 @@ import java.time.LocalDateTime;
 public class AuditService {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditPipeline auditPipeline;
+    private final AuditJournal auditJournal;
 
-    public AuditService(AuditLogRepository auditLogRepository) {
+    public AuditService(AuditLogRepository auditLogRepository, AuditPipeline auditPipeline, AuditJournal auditJournal) {
         this.auditLogRepository = auditLogRepository;
+        this.auditPipeline = auditPipeline;
+        this.auditJournal = auditJournal;
     }
 
     public void logChange(String ipAddress, LogLevel logLevel, String actionType, Long actorUserId, String entityName, Long entityId,
@@ -33,7 +38,20 @@ public class AuditService {
         auditLog.setNewValue(newValue);
         auditLog.setActionType(actionType);
 
-        auditLogRepository.save(auditLog);
+        log(auditLog);
     }
-}
 
+    /**
+     * Zapíše hotový záznam - do žurnálu, asynchronně přes AuditPipeline, nebo přímo do DB.
+     */
+    public void log(AuditLog auditLog) {
+        if (auditJournal.isEnabled() && auditJournal.append(auditLog)) {
+            return;
+        }
+        if (auditPipeline.isEnabled()) {
+            auditPipeline.submit(auditLog);
+        } else {
+            auditLogRepository.save(auditLog);
+        }
+    }
+}
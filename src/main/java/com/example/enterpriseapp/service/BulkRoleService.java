@@ -0,0 +1,150 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.dto.BulkRoleRequest;
+import com.example.enterpriseapp.dto.BulkRoleResult;
+import com.example.enterpriseapp.entity.LogLevel;
+import com.example.enterpriseapp.exception.CustomException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Hromadné přidání/odebrání rolí nad users_roles množinovými příkazy.
+ * <p>
+ * Uživatelé se zpracují po dávkách (app.user-roles.bulk.batch-size). Každá dávka jsou
+ * nejvýš dva příkazy v jedné transakci bez ohledu na počet uživatelů a rolí (posun updated_at
+ * jen u uživatelů, kterým se role opravdu změní, a INSERT IGNORE ... SELECT nebo DELETE
+ * ... IN (SELECT)) a jeden souhrnný auditní záznam.
+ */
+@Service
+public class BulkRoleService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRegistry roleRegistry;
+    private final AuditService auditService;
+    private final UserCache userCache;
+    private final int batchSize;
+
+    public BulkRoleService(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           RoleRegistry roleRegistry,
+                           AuditService auditService,
+                           UserCache userCache,
+                           @Value("${app.user-roles.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.roleRegistry = roleRegistry;
+        this.auditService = auditService;
+        this.userCache = userCache;
+        this.batchSize = batchSize;
+    }
+
+    public BulkRoleResult apply(BulkRoleRequest request, Long actorUserId, String ipAddress) {
+        if (request.getAction() == null) {
+            throw new CustomException(400, "Action is required");
+        }
+        boolean byUsernames = request.getUsernames() != null && !request.getUsernames().isEmpty();
+        boolean byRange = request.getFromUserId() != null && request.getToUserId() != null;
+        if (byUsernames == byRange) {
+            throw new CustomException(400, "Specify either usernames or fromUserId and toUserId");
+        }
+        List<Long> roleIds = roleRegistry.ids(request.getRoles());
+        String roleNames = new TreeSet<>(request.getRoles()).toString();
+
+        BulkRoleResult result = new BulkRoleResult(0, 0, 0);
+        try {
+            if (byUsernames) {
+                List<String> usernames = new ArrayList<>(new LinkedHashSet<>(request.getUsernames()));
+                for (int from = 0; from < usernames.size(); from += batchSize) {
+                    List<String> chunk = usernames.subList(from, Math.min(from + batchSize, usernames.size()));
+                    String condition = "u.username IN (" + placeholders(chunk.size()) + ")";
+                    long[] counts = applyBatch(request.getAction(), roleIds, condition, new ArrayList<>(chunk), result);
+                    audit(request.getAction(), roleNames, chunk.size() + " usernames", counts, actorUserId, ipAddress);
+                }
+            } else {
+                long after = request.getFromUserId() - 1;
+                long to = request.getToUserId();
+                while (after < to) {
+                    long chunkEnd = chunkEnd(after, to);
+                    long[] counts = applyBatch(request.getAction(), roleIds, "u.id > ? AND u.id <= ?", List.of(after, chunkEnd), result);
+                    audit(request.getAction(), roleNames, "ids " + (after + 1) + ".." + chunkEnd, counts, actorUserId, ipAddress);
+                    after = chunkEnd;
+                }
+            }
+        } finally {
+            // Snapshoty v cache nesou role; po hromadné změně je levnější zahodit všechny
+            userCache.invalidateAll();
+        }
+        return result;
+    }
+
+    // Konec dávky v rozsahu id: id jsou řídká (TimeOrderedIds), proto podle batch-size-tého existujícího id
+    private long chunkEnd(long after, long to) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE id > ? AND id <= ? ORDER BY id LIMIT 1 OFFSET ?",
+                Long.class, after, to, batchSize - 1);
+        return ids.isEmpty() ? to : ids.get(0);
+    }
+
+    private long[] applyBatch(BulkRoleRequest.Action action, List<Long> roleIds, String userCondition,
+                              List<Object> userParams, BulkRoleResult result) {
+        String roleCondition = placeholders(roleIds.size());
+        // Uživatel, kterému chybí některá z rolí (ADD), resp. má některou z nich (REMOVE)
+        String changeCondition = action == BulkRoleRequest.Action.ADD
+                ? "EXISTS (SELECT 1 FROM roles r WHERE r.id IN (" + roleCondition + ") AND NOT EXISTS "
+                + "(SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id = r.id))"
+                : "EXISTS (SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id IN (" + roleCondition + "))";
+        long[] counts = transactionTemplate.execute(status -> {
+            List<Object> touchParams = new ArrayList<>();
+            touchParams.add(Timestamp.valueOf(LocalDateTime.now()));
+            touchParams.addAll(userParams);
+            touchParams.addAll(roleIds);
+            // updated_at mění verzi uživatele (tokeny, cache, ETag) - jen tam, kde se role změní.
+            // Běží před zápisem rolí, aby viděl původní stav; zamkne řádky dotčených uživatelů.
+            int touched = jdbcTemplate.update("UPDATE users u SET updated_at = ? WHERE " + userCondition
+                    + " AND " + changeCondition, touchParams.toArray());
+            if (touched == 0) {
+                return new long[]{0, 0};
+            }
+
+            List<Object> params = new ArrayList<>(userParams);
+            params.addAll(roleIds);
+            int changed;
+            if (action == BulkRoleRequest.Action.ADD) {
+                changed = jdbcTemplate.update("INSERT IGNORE INTO users_roles (user_id, role_id) "
+                        + "SELECT u.id, r.id FROM users u CROSS JOIN roles r "
+                        + "WHERE " + userCondition + " AND r.id IN (" + roleCondition + ")", params.toArray());
+            } else {
+                changed = jdbcTemplate.update("DELETE FROM users_roles WHERE user_id IN (SELECT u.id FROM users u WHERE "
+                        + userCondition + ") AND role_id IN (" + roleCondition + ")", params.toArray());
+            }
+            return new long[]{touched, changed};
+        });
+        result.setChangedUsers(result.getChangedUsers() + counts[0]);
+        result.setChangedAssignments(result.getChangedAssignments() + counts[1]);
+        result.setBatches(result.getBatches() + 1);
+        return counts;
+    }
+
+    // Jeden auditní záznam za dávku místo záznamu za uživatele
+    private void audit(BulkRoleRequest.Action action, String roleNames, String selection, long[] counts,
+                       Long actorUserId, String ipAddress) {
+        auditService.logChange(ipAddress, LogLevel.INFO, "BULK_UPDATE_ROLES", actorUserId, "roles", null,
+                action.name(), null, roleNames + " " + selection + ", users=" + counts[0] + ", changed=" + counts[1]);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.common.BloomFilter;
+import com.example.enterpriseapp.entity.RefreshToken;
+import com.example.enterpriseapp.repository.RefreshTokenRepository;
+import com.example.enterpriseapp.security.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Úložiště refresh tokenů s rotací a detekcí opakovaného použití.
+ * <p>
+ * Zdrojem pravdy je tabulka refresh_tokens. Stav tokenů se drží i v paměti
+ * (Caffeine, expirace podle platnosti tokenu) a odvolaná id v Bloomově filtru:
+ * token, který v paměti není a filtr ho nezná, se sestaví z ověřených claimů
+ * bez čtení z DB. Jedinou operací v DB při rotaci je podmíněný UPDATE starého
+ * a INSERT nového tokenu - podmíněný UPDATE zároveň chytí souběh mezi uzly.
+ * <p>
+ * Opakované použití už zrotovaného tokenu odvolá celou rodinu (všechny tokeny
+ * daného přihlášení). Odvolání všech tokenů uživatele (změna hesla, smazání účtu)
+ * tabulku nemění - refresh tokeny hlídá users.tokens_valid_after v AccessTokenDenylist.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    public enum Status {
+        ROTATED, INVALID, REUSED
+    }
+
+    public static final class Rotation {
+        private final Status status;
+        private final String tokenId;
+        private final String familyId;
+
+        private Rotation(Status status, String tokenId, String familyId) {
+            this.status = status;
+            this.tokenId = tokenId;
+            this.familyId = familyId;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /** Id nového refresh tokenu (jen ROTATED). */
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        public String getFamilyId() {
+            return familyId;
+        }
+    }
+
+    private static final class Entry {
+        private final Long userId;
+        private final String familyId;
+        private final long expiresAtMillis;
+        private final AtomicBoolean revoked;
+
+        private Entry(Long userId, String familyId, long expiresAtMillis, boolean revoked) {
+            this.userId = userId;
+            this.familyId = familyId;
+            this.expiresAtMillis = expiresAtMillis;
+            this.revoked = new AtomicBoolean(revoked);
+        }
+    }
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long refreshExpirationMillis;
+    private final int bloomCapacity;
+    private final int purgeBatchSize;
+    private final Cache<String, Entry> index;
+    private volatile BloomFilter revokedIds;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${app.jwt.refresh-expiration}") long refreshExpirationMillis,
+                               @Value("${app.jwt.refresh.index-max-size:100000}") long indexMaxSize,
+                               @Value("${app.jwt.refresh.bloom-capacity:100000}") int bloomCapacity,
+                               @Value("${app.jwt.refresh.purge-batch-size:1000}") int purgeBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshExpirationMillis = refreshExpirationMillis;
+        this.bloomCapacity = bloomCapacity;
+        this.purgeBatchSize = purgeBatchSize;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(indexMaxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAtMillis - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.revokedIds = new BloomFilter(bloomCapacity, 0.01);
+    }
+
+    @PostConstruct
+    void loadRevokedIds() {
+        rebuildRevokedIds();
+    }
+
+    /**
+     * Založí refresh token. familyId null = nové přihlášení (nová rodina).
+     */
+    @Transactional
+    public RefreshToken issue(Long userId, String familyId) {
+        String id = UUID.randomUUID().toString();
+        String family = familyId != null ? familyId : UUID.randomUUID().toString();
+        long expiresAtMillis = System.currentTimeMillis() + refreshExpirationMillis;
+        RefreshToken token = refreshTokenRepository.save(new RefreshToken(id, family, userId, toLocalDateTime(expiresAtMillis)));
+        index.put(id, new Entry(userId, family, expiresAtMillis, false));
+        return token;
+    }
+
+    /**
+     * Zneplatní předložený (už ověřený) refresh token a vydá nástupce ve stejné rodině.
+     */
+    @Transactional
+    public Rotation rotate(VerifiedToken presented) {
+        String id = presented.getTokenId();
+        if (id == null || !presented.isRefreshToken()) {
+            return new Rotation(Status.INVALID, null, null);
+        }
+        Entry entry = lookup(id, presented);
+        if (entry == null) {
+            return new Rotation(Status.INVALID, null, null);
+        }
+        // Lokální CAS rozhodne souběh v rámci uzlu, podmíněný UPDATE souběh mezi uzly
+        if (!entry.revoked.compareAndSet(false, true)) {
+            return reused(entry);
+        }
+        int updated;
+        try {
+            updated = refreshTokenRepository.markUsed(id);
+        } catch (RuntimeException e) {
+            // Token v DB použitý není - opakovaný pokus klienta nesmí vypadat jako reuse
+            entry.revoked.set(false);
+            throw e;
+        }
+        resetOnRollback(entry);
+        if (updated == 0) {
+            return reused(entry);
+        }
+        revokedIds.add(id);
+        RefreshToken successor = issue(entry.userId, entry.familyId);
+        return new Rotation(Status.ROTATED, successor.getId(), entry.familyId);
+    }
+
+    private Rotation reused(Entry entry) {
+        logger.warn("Refresh token reuse detected, revoking family {}", entry.familyId);
+        revokeFamily(entry.familyId);
+        return new Rotation(Status.REUSED, null, entry.familyId);
+    }
+
+    // Rollback (např. selhání INSERT nástupce nebo commitu) vrátí token do stavu před rotací
+    private static void resetOnRollback(Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    entry.revoked.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Odvolá všechny tokeny rodiny (odhlášení, detekované opakované použití).
+     */
+    @Transactional
+    public void revokeFamily(String familyId) {
+        refreshTokenRepository.revokeFamily(familyId);
+        markRevoked(refreshTokenRepository.findIdsByFamilyId(familyId));
+    }
+
+    private void markRevoked(List<String> ids) {
+        for (String id : ids) {
+            revokedIds.add(id);
+            Entry entry = index.getIfPresent(id);
+            if (entry != null) {
+                entry.revoked.set(true);
+            }
+        }
+    }
+
+    // Paměť -> (jen když Bloomův filtr hlásí možné odvolání) DB -> ověřené claimy tokenu
+    private Entry lookup(String id, VerifiedToken presented) {
+        Entry entry = index.getIfPresent(id);
+        if (entry != null) {
+            return entry;
+        }
+        if (revokedIds.mightContain(id)) {
+            RefreshToken stored = refreshTokenRepository.findById(id).orElse(null);
+            if (stored == null) {
+                return null;
+            }
+            entry = new Entry(stored.getUserId(), stored.getFamilyId(),
+                    stored.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli(), stored.isRevoked());
+        } else {
+            // Podpis tokenu je ověřený, claimy jsou naše; neexistující řádek odhalí markUsed
+            entry = new Entry(presented.getUserId(), presented.getFamilyId(), presented.getExpiresAtMillis(), false);
+        }
+        index.put(id, entry);
+        return entry;
+    }
+
+    /**
+     * Průběžné mazání expirovaných tokenů po dávkách (index na expires_at).
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.refresh.purge-interval-ms:60000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now(ZoneOffset.UTC), purgeBatchSize);
+        if (deleted > 0) {
+            logger.debug("Purged {} expired refresh tokens", deleted);
+        }
+        if (revokedIds.isSaturated()) {
+            rebuildRevokedIds();
+        }
+    }
+
+    private void rebuildRevokedIds() {
+        List<String> ids = refreshTokenRepository.findRevokedIds(LocalDateTime.now(ZoneOffset.UTC));
+        BloomFilter rebuilt = new BloomFilter(Math.max(bloomCapacity, ids.size() * 2), 0.01);
+        ids.forEach(rebuilt::add);
+        revokedIds = rebuilt;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
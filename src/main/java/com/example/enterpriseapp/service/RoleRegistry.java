@@ -0,0 +1,138 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.entity.Role;
+import com.example.enterpriseapp.exception.CustomException;
+import com.example.enterpriseapp.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Neměnný snapshot rolí (název -> id) načtený při startu. Převod názvů na role je bez
+ * dotazu do DB: vrací se reference (EntityManager.getReference), které pro zápis
+ * do users_roles stačí id.
+ * <p>
+ * Snapshot se vymění při vytvoření role přes create() a periodicky
+ * (app.roles.refresh-interval-ms), aby se projevily i role přidané na jiném uzlu.
+ * Každá změna zvýší version(), podle které UserCache pozná zastaralé snapshoty uživatelů.
+ */
+@Component
+public class RoleRegistry {
+
+    private record Snapshot(Map<String, Long> idsByName, long version) {
+    }
+
+    private final RoleRepository roleRepository;
+    private final EntityManager entityManager;
+    // Ne synchronized - na virtuálním vlákně by monitor držený přes JDBC přišpendlil nosné vlákno
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), 0);
+
+    public RoleRegistry(RoleRepository roleRepository, EntityManager entityManager) {
+        this.roleRepository = roleRepository;
+        this.entityManager = entityManager;
+    }
+
+    @PostConstruct
+    void init() {
+        reload();
+    }
+
+    /**
+     * Role podle názvu, nebo 404.
+     */
+    public Role resolve(String name) {
+        Long id = snapshot.idsByName().get(name);
+        if (id == null) {
+            throw new CustomException(404, "Role not found: " + name);
+        }
+        return entityManager.getReference(Role.class, id);
+    }
+
+    /**
+     * Role podle názvů; chybějící se nahlásí všechny najednou.
+     */
+    public Set<Role> resolveAll(Collection<String> names) {
+        return ids(names).stream()
+                .map(id -> entityManager.getReference(Role.class, id))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    public List<Long> ids(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            throw new CustomException(400, "At least one role is required");
+        }
+        Map<String, Long> idsByName = snapshot.idsByName();
+        Set<String> missing = new TreeSet<>(names);
+        missing.removeAll(idsByName.keySet());
+        if (!missing.isEmpty()) {
+            throw new CustomException(404, "Role not found: " + String.join(", ", missing));
+        }
+        return names.stream().distinct().map(idsByName::get).toList();
+    }
+
+    public Set<String> names() {
+        return new TreeSet<>(snapshot.idsByName().keySet());
+    }
+
+    public boolean exists(String name) {
+        return snapshot.idsByName().containsKey(name);
+    }
+
+    public long version() {
+        return snapshot.version();
+    }
+
+    /**
+     * Založí roli a hned ji zveřejní v registru.
+     */
+    public Role create(String name) {
+        if (name == null || name.isBlank()) {
+            throw new CustomException(400, "Role name is required");
+        }
+        if (exists(name)) {
+            throw new CustomException(409, "Role already exists: " + name);
+        }
+        Role role = new Role();
+        role.setName(name);
+        try {
+            role = roleRepository.save(role);
+        } catch (DataIntegrityViolationException e) {
+            // Souběžně ji založil jiný požadavek nebo uzel
+            reload();
+            throw new CustomException(409, "Role already exists: " + name);
+        }
+        reload();
+        return role;
+    }
+
+    /**
+     * Znovu načte role z DB; verze se zvýší jen při skutečné změně.
+     */
+    @Scheduled(fixedDelayString = "${app.roles.refresh-interval-ms:60000}", initialDelayString = "${app.roles.refresh-interval-ms:60000}")
+    public void reload() {
+        // Načtení se serializují, aby starší výsledek z DB nepřepsal novější
+        reloadLock.lock();
+        try {
+            Map<String, Long> idsByName = roleRepository.findAll().stream()
+                    .collect(Collectors.toUnmodifiableMap(Role::getName, Role::getId));
+            Snapshot current = snapshot;
+            if (!idsByName.equals(current.idsByName())) {
+                snapshot = new Snapshot(idsByName, current.version() + 1);
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
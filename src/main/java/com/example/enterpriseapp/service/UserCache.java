@@ -0,0 +1,109 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.config.ThreadingConfig;
+import com.example.enterpriseapp.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Cache snapshotů uživatelů před UserRepository. Souběžné missy stejného klíče
+ * načítá Caffeine jen jednou, zápisové cesty musí volat invalidate().
+ * Snapshot vzniklý před změnou rolí (RoleRegistry.version()) se při čtení načte znovu.
+ * <p>
+ * Cache je asynchronní: pod zámkem Caffeine (synchronized) se jen vloží future, samotný
+ * dotaz do DB běží v ThreadingConfig.USER_CACHE_EXECUTOR - na virtuálních vláknech tak
+ * JDBC nepřišpendlí nosné vlákno. Volající na výsledek čeká mimo zámek.
+ */
+@Component
+public class UserCache {
+
+    private final AsyncLoadingCache<String, UserSnapshot> byUsername;
+    private final AsyncLoadingCache<Long, UserSnapshot> byId;
+    private final RoleRegistry roleRegistry;
+
+    public UserCache(UserRepository userRepository,
+                     RoleRegistry roleRegistry,
+                     MeterRegistry meterRegistry,
+                     @Qualifier(ThreadingConfig.USER_CACHE_EXECUTOR) Executor executor,
+                     @Value("${app.user-cache.max-size:10000}") long maxSize,
+                     @Value("${app.user-cache.ttl:60s}") Duration ttl) {
+        this.roleRegistry = roleRegistry;
+        this.byUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .executor(executor)
+                .buildAsync(username -> userRepository.findByUsername(username).map(user -> UserSnapshot.from(user, roleRegistry.version())).orElse(null));
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .executor(executor)
+                .buildAsync(id -> userRepository.findById(id).map(user -> UserSnapshot.from(user, roleRegistry.version())).orElse(null));
+
+        // cache.gets (hit/miss), cache.evictions, cache.load.duration, ...
+        CaffeineCacheMetrics.monitor(meterRegistry, byUsername, "users.byUsername");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.byId");
+        Gauge.builder("cache.hit.ratio", byUsername, cache -> cache.synchronous().stats().hitRate())
+                .tag("cache", "users.byUsername")
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", byId, cache -> cache.synchronous().stats().hitRate())
+                .tag("cache", "users.byId")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Vrací snapshot nebo null, pokud uživatel neexistuje (negativní výsledek se necachuje).
+     */
+    public UserSnapshot findByUsername(String username) {
+        return fresh(byUsername, username);
+    }
+
+    public UserSnapshot findById(Long id) {
+        return fresh(byId, id);
+    }
+
+    public void invalidate(String username, Long id) {
+        if (username != null) {
+            byUsername.synchronous().invalidate(username);
+        }
+        if (id != null) {
+            byId.synchronous().invalidate(id);
+        }
+    }
+
+    private <K> UserSnapshot fresh(AsyncLoadingCache<K, UserSnapshot> cache, K key) {
+        UserSnapshot user = load(cache, key);
+        if (user != null && user.getRoleVersion() != roleRegistry.version()) {
+            cache.synchronous().invalidate(key);
+            user = load(cache, key);
+        }
+        return user;
+    }
+
+    private static <K> UserSnapshot load(AsyncLoadingCache<K, UserSnapshot> cache, K key) {
+        try {
+            return cache.get(key).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidateAll() {
+        byUsername.synchronous().invalidateAll();
+        byId.synchronous().invalidateAll();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.enterpriseapp.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Validátory pro podmíněné GET nad uživatelem. ETag = id + updatedAt + verze RoleRegistry;
+ * updatedAt se posouvá při každé změně uživatele včetně rolí (i hromadných).
+ */
+public final class UserETags {
+
+    private UserETags() {
+    }
+
+    public static String etag(Long id, LocalDateTime updatedAt, long roleVersion) {
+        // Stejné millis jako UserSnapshot.getVersion() - jde jen o identitu verze
+        long version = updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+        return "\"" + id + "-" + version + "-" + roleVersion + "\"";
+    }
+
+    /**
+     * Last-Modified v epoch millis, -1 pokud není známé. updatedAt je lokální čas serveru
+     * (LocalDateTime.now()); hlavička má sekundovou přesnost, zaokrouhlí si ji Spring.
+     */
+    public static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1L;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.exception.CustomException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streamované čtení importu uživatelů po řádcích - v paměti je vždy jen aktuální záznam.
+ * Chyba jednoho řádku (poškozený JSON, chybějící sloupec) se vrací jako Row s chybou,
+ * čtení pokračuje dalším řádkem.
+ */
+class UserImportReader {
+
+    static final class Row {
+        final long number;
+        final String username;
+        final String email;
+        String password;
+        final String error;
+        String passwordHash;
+
+        private Row(long number, String username, String email, String password, String error) {
+            this.number = number;
+            this.username = username;
+            this.email = email;
+            this.password = password;
+            this.error = error;
+        }
+    }
+
+    private final BufferedReader reader;
+    private final UserImportService.Format format;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private int usernameColumn = -1;
+    private int emailColumn = -1;
+    private int passwordColumn = -1;
+    private long rowNumber;
+
+    UserImportReader(BufferedReader reader, UserImportService.Format format) throws IOException {
+        this.reader = reader;
+        this.format = format;
+        if (format == UserImportService.Format.CSV) {
+            readHeader();
+        }
+    }
+
+    /**
+     * Další datový řádek, nebo null na konci vstupu. Prázdné řádky se přeskakují.
+     */
+    Row next() throws IOException {
+        String line = reader.readLine();
+        while (line != null && line.isBlank()) {
+            line = reader.readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+        rowNumber++;
+        return format == UserImportService.Format.CSV ? parseCsv(line) : parseJson(line);
+    }
+
+    private void readHeader() throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new CustomException(400, "CSV header is missing");
+        }
+        List<String> columns = splitCsv(header);
+        if (columns == null) {
+            throw new CustomException(400, "CSV header is malformed");
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "username" -> usernameColumn = i;
+                case "email" -> emailColumn = i;
+                case "password" -> passwordColumn = i;
+                default -> {
+                    // Ostatní sloupce ignorujeme
+                }
+            }
+        }
+        if (usernameColumn < 0 || passwordColumn < 0) {
+            throw new CustomException(400, "CSV header must contain username and password columns");
+        }
+    }
+
+    private Row parseCsv(String line) throws IOException {
+        List<String> values = splitCsv(line);
+        if (values == null) {
+            return new Row(rowNumber, null, null, null, "Unterminated quoted value");
+        }
+        return new Row(rowNumber, column(values, usernameColumn), column(values, emailColumn),
+                column(values, passwordColumn), null);
+    }
+
+    private Row parseJson(String line) {
+        String username = null;
+        String email = null;
+        String password = null;
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new Row(rowNumber, null, null, null, "Row is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value.isStructStart()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                String text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                switch (field) {
+                    case "username" -> username = text;
+                    case "email" -> email = text;
+                    case "password" -> password = text;
+                    default -> {
+                        // Ostatní pole ignorujeme
+                    }
+                }
+            }
+        } catch (IOException e) {
+            return new Row(rowNumber, null, null, null, "Malformed JSON");
+        }
+        return new Row(rowNumber, username, email, password, null);
+    }
+
+    // Hodnoty v uvozovkách smí obsahovat čárky i zalomení řádku (RFC 4180); null = neukončené uvozovky
+    private List<String> splitCsv(String line) throws IOException {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        String current = line;
+        int i = 0;
+        while (true) {
+            if (i == current.length()) {
+                if (!quoted) {
+                    break;
+                }
+                current = reader.readLine();
+                if (current == null) {
+                    return null;
+                }
+                value.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = current.charAt(i++);
+            if (quoted) {
+                if (c == '"' && i < current.length() && current.charAt(i) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static String column(List<String> values, int index) {
+        if (index < 0 || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.common.TimeOrderedIds;
+import com.example.enterpriseapp.exception.CustomException;
+import com.example.enterpriseapp.security.OffloadedPasswordEncoder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hromadný import uživatelů z CSV nebo NDJSON.
+ * <p>
+ * Vstup se čte streamovaně po dávkách (app.user-import.batch-size). Pro každou dávku:
+ * jeden dotaz na již existující username, BCrypt paralelně na vlastním omezeném
+ * ForkJoinPoolu (nebere vlákna přihlášení) a INSERT do users a users_roles jedním
+ * JDBC batchem v transakci.
+ * <p>
+ * Výstup je NDJSON: chyba pro každý odmítnutý řádek, po každé dávce průběh
+ * (committedRows, rowsPerSecond). Po přerušení lze import spustit znovu se
+ * skip=committedRows; řádky do committedRows jsou zpracované.
+ */
+@Service
+public class UserImportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new CustomException(400, "Unsupported import format: " + value);
+            }
+        }
+    }
+
+    /**
+     * Souhrn dokončeného importu (pro audit).
+     */
+    public static final class Result {
+        private final long rows;
+        private final long imported;
+        private final long failed;
+
+        private Result(long rows, long imported, long failed) {
+            this.rows = rows;
+            this.imported = imported;
+            this.failed = failed;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+    }
+
+    private static final String DEFAULT_ROLE = "ROLE_USER";
+    private static final int MAX_LENGTH = 255;
+
+    private static final String INSERT_USER_SQL = "INSERT INTO users (id, username, email, password, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE_SQL = "INSERT INTO users_roles (user_id, role_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRegistry roleRegistry;
+    private final PasswordEncoder passwordEncoder;
+    private final TimeOrderedIds ids;
+    private final int batchSize;
+    private final ForkJoinPool hashingPool;
+    // Souběžné importy by se jen přetahovaly o stejná jádra
+    private final ReentrantLock importLock = new ReentrantLock();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Counter importedRows;
+    private final Counter failedRows;
+
+    public UserImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             RoleRegistry roleRegistry,
+                             PasswordEncoder passwordEncoder,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.id.node-id:0}") int nodeId,
+                             @Value("${app.user-import.batch-size:500}") int batchSize,
+                             @Value("${app.user-import.hash-parallelism:0}") int hashParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.roleRegistry = roleRegistry;
+        this.passwordEncoder = passwordEncoder instanceof OffloadedPasswordEncoder offloaded
+                ? offloaded.getDelegate()
+                : passwordEncoder;
+        this.ids = TimeOrderedIds.forNode(nodeId);
+        this.batchSize = batchSize;
+        int parallelism = hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors();
+        this.hashingPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("user-import-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.importedRows = Counter.builder("user.import.rows").tag("result", "imported").register(meterRegistry);
+        this.failedRows = Counter.builder("user.import.rows").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Ověří, že import může začít (neběží jiný), ještě před odesláním odpovědi.
+     */
+    public void checkAvailable() {
+        if (importLock.isLocked()) {
+            throw new CustomException(409, "Another user import is running");
+        }
+    }
+
+    public Result importUsers(InputStream input, Format format, long skipRows, OutputStream out) throws IOException {
+        if (!importLock.tryLock()) {
+            throw new CustomException(409, "Another user import is running");
+        }
+        try {
+            Long defaultRoleId = roleRegistry.ids(List.of(DEFAULT_ROLE)).get(0);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            JsonGenerator json = jsonFactory.createGenerator(out);
+            json.setRootValueSeparator(new SerializedString(""));
+            UserImportReader importReader;
+            try {
+                importReader = new UserImportReader(reader, format);
+            } catch (CustomException e) {
+                // Odpověď už se streamuje, chybu hlavičky hlásíme jako řádek výstupu
+                json.writeStartObject();
+                json.writeStringField("type", "error");
+                json.writeStringField("error", e.getMessage());
+                json.writeEndObject();
+                json.writeRaw('\n');
+                json.flush();
+                return new Result(0, 0, 0);
+            }
+            return run(importReader, defaultRoleId, skipRows, json);
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private Result run(UserImportReader reader, Long roleId, long skipRows, JsonGenerator json) throws IOException {
+        long startedAt = System.nanoTime();
+        long rows = 0;
+        long imported = 0;
+
+        UserImportReader.Row row;
+        while (rows < skipRows && reader.next() != null) {
+            rows++;
+        }
+        long processed = 0;
+        List<UserImportReader.Row> chunk = new ArrayList<>(batchSize);
+        boolean end = false;
+        while (!end) {
+            chunk.clear();
+            while (chunk.size() < batchSize && (row = reader.next()) != null) {
+                chunk.add(row);
+            }
+            end = chunk.size() < batchSize;
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            List<UserImportReader.Row> accepted = new ArrayList<>(chunk.size());
+            for (UserImportReader.Row candidate : chunk) {
+                String error = validate(candidate);
+                if (error != null) {
+                    writeError(json, candidate, error);
+                } else {
+                    accepted.add(candidate);
+                }
+            }
+            imported += insert(removeDuplicates(accepted, json), roleId, json);
+
+            rows += chunk.size();
+            processed += chunk.size();
+            writeProgress(json, "progress", rows, imported, processed - imported, processed, startedAt);
+        }
+        writeProgress(json, "summary", rows, imported, processed - imported, processed, startedAt);
+        return new Result(rows, imported, processed - imported);
+    }
+
+    private static String validate(UserImportReader.Row row) {
+        if (row.error != null) {
+            return row.error;
+        }
+        if (row.username == null || row.username.isBlank()) {
+            return "Username is required";
+        }
+        if (row.password == null || row.password.isEmpty()) {
+            return "Password is required";
+        }
+        if (row.username.length() > MAX_LENGTH || (row.email != null && row.email.length() > MAX_LENGTH)) {
+            return "Value is too long";
+        }
+        if (row.email != null && row.email.indexOf('@') < 1) {
+            return "Invalid email";
+        }
+        return null;
+    }
+
+    // Duplicity v rámci dávky a proti databázi (jeden dotaz na dávku)
+    private List<UserImportReader.Row> removeDuplicates(List<UserImportReader.Row> rows, JsonGenerator json) throws IOException {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        Map<String, UserImportReader.Row> unique = new LinkedHashMap<>();
+        for (UserImportReader.Row row : rows) {
+            if (unique.putIfAbsent(usernameKey(row.username), row) != null) {
+                writeError(json, row, "Duplicate username in input");
+            }
+        }
+        Set<String> existing = existingUsernames(unique.values());
+        List<UserImportReader.Row> result = new ArrayList<>(unique.size());
+        for (UserImportReader.Row row : unique.values()) {
+            if (existing.contains(usernameKey(row.username))) {
+                writeError(json, row, "Username already exists");
+            } else {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    // Klíče (usernameKey) existujících uživatelů; IN najde i jinou velikost písmen díky collation sloupce
+    private Set<String> existingUsernames(Collection<UserImportReader.Row> rows) {
+        if (rows.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String sql = "SELECT username FROM users WHERE username IN ("
+                + String.join(", ", Collections.nCopies(rows.size(), "?")) + ")";
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.queryForList(sql, String.class, rows.stream().map(row -> row.username).toArray())
+                .forEach(username -> existing.add(usernameKey(username)));
+        return existing;
+    }
+
+    // UNIQUE index na users.username používá case-insensitive collation MySQL
+    private static String usernameKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private long insert(List<UserImportReader.Row> rows, Long roleId, JsonGenerator json) throws IOException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // BCrypt je jediná drahá část - paralelně přes celou dávku
+        hashingPool.submit(() -> rows.parallelStream().forEach(row -> {
+            row.passwordHash = passwordEncoder.encode(row.password);
+            row.password = null;
+        })).join();
+
+        List<UserImportReader.Row> toInsert = rows;
+        try {
+            insertBatch(toInsert, roleId);
+        } catch (DuplicateKeyException e) {
+            // Souběžná registrace stejného username mezi kontrolou a zápisem - dávku zopakujeme bez něj
+            Set<String> existing = existingUsernames(rows);
+            toInsert = new ArrayList<>();
+            for (UserImportReader.Row row : rows) {
+                if (existing.contains(usernameKey(row.username))) {
+                    writeError(json, row, "Username already exists");
+                } else {
+                    toInsert.add(row);
+                }
+            }
+            try {
+                insertBatch(toInsert, roleId);
+            } catch (DuplicateKeyException again) {
+                // Kolize, kterou kontrola nezachytila (jiná collation, další souběh) - po řádcích
+                toInsert = insertOneByOne(toInsert, roleId, json);
+            }
+        }
+        importedRows.increment(toInsert.size());
+        return toInsert.size();
+    }
+
+    private List<UserImportReader.Row> insertOneByOne(List<UserImportReader.Row> rows, Long roleId, JsonGenerator json) throws IOException {
+        List<UserImportReader.Row> inserted = new ArrayList<>(rows.size());
+        for (UserImportReader.Row row : rows) {
+            try {
+                insertBatch(List.of(row), roleId);
+                inserted.add(row);
+            } catch (DuplicateKeyException e) {
+                writeError(json, row, "Username already exists");
+            }
+        }
+        return inserted;
+    }
+
+    private void insertBatch(List<UserImportReader.Row> rows, Long roleId) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> users = new ArrayList<>(rows.size());
+        List<Object[]> userRoles = new ArrayList<>(rows.size());
+        for (UserImportReader.Row row : rows) {
+            long id = ids.nextId();
+            users.add(new Object[]{id, row.username, row.email, row.passwordHash, now, now});
+            userRoles.add(new Object[]{id, roleId});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_USER_SQL, users);
+            jdbcTemplate.batchUpdate(INSERT_USER_ROLE_SQL, userRoles);
+        });
+    }
+
+    private void writeError(JsonGenerator json, UserImportReader.Row row, String error) throws IOException {
+        failedRows.increment();
+        json.writeStartObject();
+        json.writeStringField("type", "error");
+        json.writeNumberField("row", row.number);
+        json.writeStringField("username", row.username);
+        json.writeStringField("error", error);
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeProgress(JsonGenerator json, String type, long rows, long imported, long failed,
+                                      long processed, long startedAt) throws IOException {
+        double seconds = Math.max(System.nanoTime() - startedAt, 1) / 1_000_000_000.0;
+        json.writeStartObject();
+        json.writeStringField("type", type);
+        json.writeNumberField("committedRows", rows);
+        json.writeNumberField("imported", imported);
+        json.writeNumberField("failed", failed);
+        json.writeNumberField("rowsPerSecond", Math.round(processed / seconds * 10) / 10.0);
+        json.writeEndObject();
+        json.writeRaw('\n');
+        // Klient vidí průběh hned, ne až po naplnění bufferu
+        json.flush();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdown();
+    }
+}
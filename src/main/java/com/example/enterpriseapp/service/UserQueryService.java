@@ -0,0 +1,175 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.common.KeysetCursor;
+import com.example.enterpriseapp.dto.KeysetPage;
+import com.example.enterpriseapp.dto.UserInfoView;
+import com.example.enterpriseapp.dto.UserListFilter;
+import com.example.enterpriseapp.dto.UserListItem;
+import com.example.enterpriseapp.entity.Role;
+import com.example.enterpriseapp.entity.User;
+import com.example.enterpriseapp.exception.CustomException;
+import com.example.enterpriseapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Čtecí dotazy nad uživateli, které nepotřebují entitu User.
+ * <p>
+ * Výpis uživatelů pro administraci s keyset stránkováním podle (createdAt, id) sestupně.
+ * <p>
+ * Čte se projekce (id, username, email, createdAt, updatedAt) - entita User ani hash hesla
+ * se nenačítá a EAGER role se nespouští. Role celé stránky dotáhne jeden dotaz podle id,
+ * takže stránka jsou vždy dva dotazy bez ohledu na velikost tabulky.
+ */
+@Service
+public class UserQueryService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private final EntityManager entityManager;
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+
+    public UserQueryService(EntityManager entityManager, UserRepository userRepository, RoleRegistry roleRegistry) {
+        this.entityManager = entityManager;
+        this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+    }
+
+    /**
+     * Username, e-mail a role jedním dotazem (skaláry, žádné managed entity ani hash hesla).
+     * Read-only transakce vypíná flush a dirty checking Hibernate session.
+     */
+    @Transactional(readOnly = true)
+    public UserInfoView findUserInfo(String username) {
+        List<Object[]> rows = userRepository.findInfoRowsByUsername(username);
+        if (rows.isEmpty()) {
+            throw new CustomException(404, "User not found");
+        }
+        Object[] first = rows.get(0);
+        Set<String> roles = new TreeSet<>();
+        for (Object[] row : rows) {
+            // left join - uživatel bez rolí má jeden řádek s null
+            if (row[4] != null) {
+                roles.add((String) row[4]);
+            }
+        }
+        Long id = (Long) first[0];
+        LocalDateTime updatedAt = (LocalDateTime) first[3];
+        return new UserInfoView(id, (String) first[1], (String) first[2], roles, updatedAt,
+                UserETags.etag(id, updatedAt, roleRegistry.version()));
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<UserListItem> search(UserListFilter filter, String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserListItem> query = cb.createQuery(UserListItem.class);
+        Root<User> root = query.from(User.class);
+        query.select(cb.construct(UserListItem.class,
+                        root.get("id"), root.get("username"), root.get("email"),
+                        root.get("createdAt"), root.get("updatedAt")))
+                .where(toPredicates(filter, after, cb, query, root))
+                .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+        // O jeden řádek navíc, abychom poznali, jestli existuje další stránka
+        List<UserListItem> rows = entityManager.createQuery(query)
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+
+        boolean hasMore = rows.size() > pageSize;
+        List<UserListItem> items = hasMore ? rows.subList(0, pageSize) : rows;
+        loadRoles(items);
+        String nextCursor = null;
+        if (hasMore) {
+            UserListItem last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new KeysetPage<>(List.copyOf(items), nextCursor);
+    }
+
+    // Role pro celou stránku jedním dotazem (místo EAGER načtení pro každého uživatele)
+    private void loadRoles(List<UserListItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<String>> rolesByUser = new HashMap<>();
+        for (UserListItem item : items) {
+            item.setRoles(new TreeSet<>());
+            rolesByUser.put(item.getId(), item.getRoles());
+        }
+        for (Object[] row : userRepository.findRoleNamesByUserIds(rolesByUser.keySet())) {
+            rolesByUser.get((Long) row[0]).add((String) row[1]);
+        }
+    }
+
+    private static Predicate[] toPredicates(UserListFilter filter, KeysetCursor after, CriteriaBuilder cb,
+                                            CriteriaQuery<?> query, Root<User> root) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (hasText(filter.getUsernamePrefix())) {
+            predicates.add(cb.like(root.get("username"), likePrefix(filter.getUsernamePrefix()), '\\'));
+        }
+        if (hasText(filter.getEmailPrefix())) {
+            predicates.add(cb.like(root.get("email"), likePrefix(filter.getEmailPrefix()), '\\'));
+        }
+        if (hasText(filter.getRole())) {
+            // EXISTS místo joinu - join by uživatele s více rolemi zdvojil
+            Subquery<Long> withRole = query.subquery(Long.class);
+            Root<User> user = withRole.from(User.class);
+            Join<User, Role> role = user.join("roles");
+            withRole.select(user.get("id"))
+                    .where(cb.equal(user.get("id"), root.get("id")), cb.equal(role.get("name"), filter.getRole()));
+            predicates.add(cb.exists(withRole));
+        }
+        if (filter.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            predicates.add(cb.lessThan(root.get("createdAt"), filter.getCreatedTo()));
+        }
+        if (filter.getUpdatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("updatedAt"), filter.getUpdatedFrom()));
+        }
+        if (filter.getUpdatedTo() != null) {
+            predicates.add(cb.lessThan(root.get("updatedAt"), filter.getUpdatedTo()));
+        }
+        if (after != null) {
+            // (createdAt, id) < (:ts, :id)
+            predicates.add(cb.or(
+                    cb.lessThan(root.get("createdAt"), after.getTimestamp()),
+                    cb.and(
+                            cb.equal(root.get("createdAt"), after.getTimestamp()),
+                            cb.lessThan(root.get("id"), after.getId())
+                    )
+            ));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    // Prefix jako LIKE 'abc%' (jde po indexu); zástupné znaky ze vstupu se escapují
+    static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -1,148 +1,255 @@
 package com.example.enterpriseapp.service;
 
-import com.example.enterpriseapp.common.ApiResponse;
-import com.example.enterpriseapp.dto.ChangePasswordRequest;
+import com.example.enterpriseapp.config.ThreadingConfig;
 import com.example.enterpriseapp.dto.AdminChangePasswordRequest;
 import com.example.enterpriseapp.dto.ChangeEmailRequest;
+import com.example.enterpriseapp.dto.ChangePasswordRequest;
 import com.example.enterpriseapp.dto.RegisterRequest;
-import com.example.enterpriseapp.dto.UserInfoResponse;
+import com.example.enterpriseapp.dto.UserInfoView;
+import com.example.enterpriseapp.entity.LogLevel;
 import com.example.enterpriseapp.entity.Role;
 import com.example.enterpriseapp.entity.User;
-import com.example.enterpriseapp.entity.LogLevel;
 import com.example.enterpriseapp.exception.CustomException;
-import com.example.enterpriseapp.repository.RoleRepository;
 import com.example.enterpriseapp.repository.UserRepository;
-
+import com.example.enterpriseapp.security.AccessTokenDenylist;
+import com.example.enterpriseapp.security.CurrentUser;
+import com.example.enterpriseapp.security.PasswordHashingExecutor;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * Operace nad uživateli pro UserController a AuthController.
+ * <p>
+ * Přihlášený uživatel se bere z CurrentUser (snapshot načtený při autentizaci), cílový
+ * uživatel z UserCache. Zápisy jsou jedna transakce s přímými UPDATE/DELETE podle id,
+ * entita se načítá jen tam, kde se mění kolekce rolí. Cache se invaliduje až po commitu.
+ * <p>
+ * Operace s heslem jsou asynchronní: do PasswordHashingExecutor jde jen BCrypt, čtení uživatele,
+ * zápis a audit běží v pokračování na authExecutor. Request-scoped CurrentUser a IP adresa se
+ * proto čtou předem ve vlákně požadavku. BCrypt běží před transakcí, aby nedržel spojení z poolu.
+ */
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
     private final AuditService auditService;
     private final HttpServletRequest httpRequest;
+    private final UserCache userCache;
+    private final CurrentUser currentUser;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final Executor authExecutor;
+    // Hash pro neexistujícího uživatele - login trvá stejně dlouho, ať uživatel existuje, nebo ne
+    private volatile String unknownUserHash;
 
-    public UserService(UserRepository userRepository, RoleRepository roleRepository,
+    public UserService(UserRepository userRepository, RoleRegistry roleRegistry,
                        PasswordEncoder passwordEncoder, AuditService auditService,
-                       HttpServletRequest httpRequest) {
+                       HttpServletRequest httpRequest, UserCache userCache,
+                       CurrentUser currentUser, PlatformTransactionManager transactionManager,
+                       PasswordHashingExecutor passwordHashingExecutor,
+                       @Qualifier(ThreadingConfig.AUTH_EXECUTOR) Executor authExecutor) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
         this.passwordEncoder = passwordEncoder;
         this.auditService = auditService;
         this.httpRequest = httpRequest;
+        this.userCache = userCache;
+        this.currentUser = currentUser;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.authExecutor = authExecutor;
     }
 
-    public void register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("User already exists");
-        }
+    public CompletableFuture<Void> register(RegisterRequest request) {
+        return passwordHashingExecutor.submit(() -> passwordEncoder.encode(request.getPassword()))
+                .thenAcceptAsync(hash -> {
+                    if (userRepository.existsByUsername(request.getUsername())) {
+                        throw new RuntimeException("User already exists");
+                    }
 
-        Role userRole = roleRepository.findByName("ROLE_USER")
-                .orElseThrow(() -> new RuntimeException("Default role not found"));
+                    Role userRole = roleRegistry.resolve("ROLE_USER");
 
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setEmail(request.getEmail());
-        user.setRoles(Collections.singleton(userRole));
+                    User user = new User();
+                    user.setUsername(request.getUsername());
+                    user.setPassword(hash);
+                    user.setEmail(request.getEmail());
+                    user.setRoles(Collections.singleton(userRole));
 
-        userRepository.save(user);
+                    userRepository.save(user);
+                    userCache.invalidate(user.getUsername(), user.getId());
+                }, authExecutor);
     }
 
-    public User findByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new CustomException(404, "User not found"));
+    /**
+     * Ověří jméno a heslo. Výsledek je snapshot uživatele, nebo null při neplatných údajích.
+     */
+    public CompletableFuture<UserSnapshot> authenticate(String username, String rawPassword) {
+        return CompletableFuture.supplyAsync(() -> userCache.findByUsername(username), authExecutor)
+                .thenCompose(user -> passwordHashingExecutor
+                        .submit(() -> passwordEncoder.matches(rawPassword, user != null ? user.getPassword() : unknownUserHash()))
+                        .thenApplyAsync(matches -> matches && user != null ? user : null, authExecutor));
     }
 
-    public User findById(Long id) {
-        return userRepository.findById(id)
-                .orElseThrow(() -> new CustomException(404, "User not found"));
+    public UserSnapshot findByUsername(String username) {
+        UserSnapshot user = userCache.findByUsername(username);
+        if (user == null) {
+            throw new CustomException(404, "User not found");
+        }
+        return user;
     }
 
-    public UserInfoResponse getCurrentUserInfo(String username) {
-        User user = findByUsername(username);
-        auditService.logChange(getClientIp(), LogLevel.INFO, "READ_USER", null, "user_details", user.getId(), null, null, null);
-        return mapToUserInfoResponse(user);
+    public UserSnapshot findById(Long id) {
+        UserSnapshot user = userCache.findById(id);
+        if (user == null) {
+            throw new CustomException(404, "User not found");
+        }
+        return user;
     }
 
-    public UserInfoResponse getUserInfoByUsername(String username) {
-        User user = findByUsername(username);
-        auditService.logChange(getClientIp(), LogLevel.INFO, "READ_USER", null, "user_details", user.getId(), null, null, null);
-        return mapToUserInfoResponse(user);
+    // Snapshot z autentizace už má vše, co /me vrací - bez dotazu a se stejnou verzí jako ETag
+    public UserInfoView getCurrentUserInfo() {
+        UserSnapshot me = currentUser.get();
+        UserInfoView user = new UserInfoView(me.getId(), me.getUsername(), me.getEmail(), new TreeSet<>(me.getRoles()),
+                me.getUpdatedAt(), me.getETag());
+        auditService.logChange(getClientIp(), LogLevel.INFO, "READ_USER", user.getId(), "user_details", user.getId(), null, null, null);
+        return user;
     }
 
-    public void changeMyPassword(String username, ChangePasswordRequest request) {
-        User user = findByUsername(username);
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
-            throw new CustomException(400, "Old password is incorrect");
-        }
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
-        auditService.logChange(getClientIp(), LogLevel.INFO, "CHANGE_PASSWORD", null, "password", user.getId(), null, null, null);
+    public void auditUserRead(UserInfoView user) {
+        auditService.logChange(getClientIp(), LogLevel.INFO, "READ_USER", currentUser.getId(), "user_details", user.getId(), null, null, null);
     }
 
-    public void changeMyEmail(String username, ChangeEmailRequest request) {
-        User user = findByUsername(username);
-        String oldEmail = user.getEmail();
-        user.setEmail(request.getNewEmail());
-        userRepository.save(user);
-        auditService.logChange(getClientIp(), LogLevel.INFO, "CHANGE_EMAIL", null, "email", user.getId(), null, oldEmail, request.getNewEmail());
+    public CompletableFuture<Void> changeMyPassword(ChangePasswordRequest request) {
+        UserSnapshot actor = currentUser.get();
+        String ipAddress = getClientIp();
+        // Hash je ve snapshotu; UPDATE ho podmiňuje, takže zastaralý snapshot neprojde
+        return passwordHashingExecutor.submit(() -> {
+                    if (!passwordEncoder.matches(request.getOldPassword(), actor.getPassword())) {
+                        throw new CustomException(400, "Old password is incorrect");
+                    }
+                    return passwordEncoder.encode(request.getNewPassword());
+                })
+                .thenAcceptAsync(newHash -> transactionTemplate.executeWithoutResult(status -> {
+                    auditService.logChange(ipAddress, LogLevel.INFO, "CHANGE_PASSWORD", actor.getId(), "password", actor.getId(), null, null, null);
+                    updatePassword(actor, newHash);
+                }), authExecutor);
     }
 
-    public void adminChangePassword(String username, AdminChangePasswordRequest request) {
-        User user = findByUsername(username);
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
-        auditService.logChange(getClientIp(), LogLevel.INFO, "CHANGE_PASSWORD", null, "password", user.getId(), null, null, null);
+    @Transactional
+    public void changeMyEmail(ChangeEmailRequest request) {
+        UserSnapshot actor = currentUser.get();
+        auditService.logChange(getClientIp(), LogLevel.INFO, "CHANGE_EMAIL", actor.getId(), "email", actor.getId(), null, actor.getEmail(), request.getNewEmail());
+        updateEmail(actor, request.getNewEmail());
     }
 
+    public CompletableFuture<Void> adminChangePassword(String username, AdminChangePasswordRequest request) {
+        Long actorId = currentUser.getId();
+        String ipAddress = getClientIp();
+        return passwordHashingExecutor.submit(() -> passwordEncoder.encode(request.getNewPassword()))
+                .thenAcceptAsync(newHash -> {
+                    UserSnapshot user = findByUsername(username);
+                    transactionTemplate.executeWithoutResult(status -> {
+                        auditService.logChange(ipAddress, LogLevel.INFO, "CHANGE_PASSWORD", actorId, "password", user.getId(), null, null, null);
+                        updatePassword(user, newHash);
+                    });
+                }, authExecutor);
+    }
+
+    @Transactional
     public void adminChangeEmail(String username, ChangeEmailRequest request) {
-        User user = findByUsername(username);
-        String oldEmail = user.getEmail();
-        user.setEmail(request.getNewEmail());
-        userRepository.save(user);
-        auditService.logChange(getClientIp(), LogLevel.INFO, "CHANGE_EMAIL", null, "email", user.getId(), null, oldEmail, request.getNewEmail());
+        UserSnapshot user = findByUsername(username);
+        auditService.logChange(getClientIp(), LogLevel.INFO, "CHANGE_EMAIL", currentUser.getId(), "email", user.getId(), null, user.getEmail(), request.getNewEmail());
+        updateEmail(user, request.getNewEmail());
     }
 
+    @Transactional
     public void updateUserRoles(String username, Set<String> roles) {
-        User user = findByUsername(username);
-        Set<Role> newRoles = new HashSet<>();
-        for (String roleName : roles) {
-            Role role = roleRepository.findByName(roleName)
-                    .orElseThrow(() -> new CustomException(404, "Role not found: " + roleName));
-            newRoles.add(role);
-        }
-        String oldRoles = user.getRoles().toString();
-        user.setRoles(newRoles);
-        userRepository.save(user);
-        auditService.logChange(getClientIp(), LogLevel.INFO, "UPDATE_ROLES", null, "roles", user.getId(), null, oldRoles, newRoles.toString());
+        // Bez dotazu do DB - reference z RoleRegistry
+        Set<Role> newRoles = roleRegistry.resolveAll(roles);
+        User user = userRepository.findWithRolesByUsername(username)
+                .orElseThrow(() -> new CustomException(404, "User not found"));
+        String oldRoles = new TreeSet<>(user.getRoles().stream().map(Role::getName).toList()).toString();
+
+        // Úprava kolekce na místě - Hibernate zapíše jen rozdíl, ne DELETE všech + INSERT
+        user.getRoles().retainAll(newRoles);
+        user.getRoles().addAll(newRoles);
+        user.setUpdatedAt(LocalDateTime.now());
+
+        auditService.logChange(getClientIp(), LogLevel.INFO, "UPDATE_ROLES", currentUser.getId(), "roles", user.getId(), null, oldRoles, new TreeSet<>(roles).toString());
+        invalidateAfterCommit(user.getUsername(), user.getId());
     }
 
+    @Transactional
     public void deleteUser(String username) {
-        User user = findByUsername(username);
-        userRepository.delete(user);
-        auditService.logChange(getClientIp(), LogLevel.INFO, "DELETE_USER", null, "account", user.getId(), null, null, null);
+        UserSnapshot user = findByUsername(username);
+        if (userRepository.deleteUserById(user.getId()) == 0) {
+            throw new CustomException(404, "User not found");
+        }
+        // Smazaný uživatel nemá snapshot - jeho access i refresh tokeny AccessTokenDenylist odmítne bez dalšího zápisu
+        auditService.logChange(getClientIp(), LogLevel.INFO, "DELETE_USER", currentUser.getId(), "account", user.getId(), null, null, null);
+        invalidateAfterCommit(user.getUsername(), user.getId());
     }
 
     // --- Pomocné metody ---
 
-    private UserInfoResponse mapToUserInfoResponse(User user) {
-        return new UserInfoResponse(
-                user.getUsername(),
-                user.getEmail(),
-                user.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toSet())
-        );
+    // Jeden UPDATE: nové heslo i not-before, takže dosud vydané access i refresh tokeny přestanou platit
+    private void updatePassword(UserSnapshot user, String newHash) {
+        int updated = userRepository.updatePassword(user.getId(), newHash, user.getPassword(), LocalDateTime.now(),
+                AccessTokenDenylist.notBefore(System.currentTimeMillis()));
+        if (updated == 0) {
+            // Heslo se mezitím změnilo (nebo účet zmizel) - snapshot byl zastaralý
+            userCache.invalidate(user.getUsername(), user.getId());
+            throw new CustomException(409, "User was modified concurrently, please retry");
+        }
+        invalidateAfterCommit(user.getUsername(), user.getId());
+    }
+
+    private void updateEmail(UserSnapshot user, String newEmail) {
+        if (userRepository.updateEmail(user.getId(), newEmail, LocalDateTime.now()) == 0) {
+            userCache.invalidate(user.getUsername(), user.getId());
+            throw new CustomException(404, "User not found");
+        }
+        invalidateAfterCommit(user.getUsername(), user.getId());
+    }
+
+    // Invalidace před commitem by dovolila souběžnému čtení uložit do cache starý stav
+    private void invalidateAfterCommit(String username, Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userCache.invalidate(username, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userCache.invalidate(username, id);
+            }
+        });
+    }
+
+    // Počítá se v poolu pro hashování (OffloadedPasswordEncoder tam běží přímo)
+    private String unknownUserHash() {
+        String hash = unknownUserHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode("unknown-user-" + System.nanoTime());
+            unknownUserHash = hash;
+        }
+        return hash;
     }
 
     private String getClientIp() {
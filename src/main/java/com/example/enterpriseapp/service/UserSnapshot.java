@@ -0,0 +1,101 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.entity.Role;
+import com.example.enterpriseapp.entity.User;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Neměnná kopie uživatele vhodná pro cache (není to managed entita).
+ */
+public final class UserSnapshot {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final Set<String> roles;
+    private final LocalDateTime updatedAt;
+    private final long roleVersion;
+    private final LocalDateTime tokensValidAfter;
+
+    public UserSnapshot(Long id, String username, String email, String password, Set<String> roles, LocalDateTime updatedAt,
+                        long roleVersion, LocalDateTime tokensValidAfter) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.password = password;
+        this.roles = Set.copyOf(roles);
+        this.updatedAt = updatedAt;
+        this.roleVersion = roleVersion;
+        this.tokensValidAfter = tokensValidAfter;
+    }
+
+    public static UserSnapshot from(User user, long roleVersion) {
+        return new UserSnapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getPassword(),
+                user.getRoles().stream().map(Role::getName).collect(Collectors.toSet()),
+                user.getUpdatedAt(),
+                roleVersion,
+                user.getTokensValidAfter()
+        );
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Verze RoleRegistry, se kterou snapshot vznikl.
+     */
+    public long getRoleVersion() {
+        return roleVersion;
+    }
+
+    /**
+     * Tokeny vydané před tímto okamžikem (UTC, sekundy) neplatí; null = žádné odvolání.
+     */
+    public LocalDateTime getTokensValidAfter() {
+        return tokensValidAfter;
+    }
+
+    /**
+     * Silný ETag (id + updatedAt + verze rolí) pro podmíněné GET.
+     */
+    public String getETag() {
+        return UserETags.etag(id, updatedAt, roleVersion);
+    }
+
+    /**
+     * Verze uživatele odvozená z updatedAt (epoch millis), 0 pokud ještě nebyla nastavena.
+     */
+    public long getVersion() {
+        return updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+}
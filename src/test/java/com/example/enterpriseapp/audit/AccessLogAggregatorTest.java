@@ -0,0 +1,133 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+import com.example.enterpriseapp.security.RequestLoggingFilter;
+import com.example.enterpriseapp.service.AuditService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class AccessLogAggregatorTest {
+
+    private static final Pattern COUNT = Pattern.compile("count=(\\d+)");
+
+    private final List<AuditLog> written = new CopyOnWriteArrayList<>();
+    private final AuditService auditService = mock(AuditService.class);
+    private final AccessLogAggregator aggregator = new AccessLogAggregator(auditService);
+
+    {
+        doAnswer(invocation -> written.add(invocation.getArgument(0))).when(auditService).log(any());
+    }
+
+    @Test
+    void writesOneRowPerKeyWithLatencyStats() {
+        aggregator.record("GET", "/api/user/{username}", 200, 7L, 1_000_000);
+        aggregator.record("GET", "/api/user/{username}", 204, 7L, 3_000_000);
+        aggregator.record("GET", "/api/user/{username}", 404, 7L, 2_000_000);
+
+        aggregator.flush();
+
+        assertEquals(2, written.size());
+        AuditLog ok = find("2xx");
+        assertEquals("GET /api/user/{username} 2xx count=2 minMs=1.000 avgMs=2.000 maxMs=3.000", ok.getNewValue());
+        assertEquals("ACCESS_SUMMARY", ok.getActionType());
+        assertEquals(7L, ok.getActorUserId());
+        assertEquals(LogLevel.WARN, find("4xx").getLogLevel());
+
+        // Další flush začíná s prázdným oknem
+        aggregator.flush();
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    void concurrentFlushesLoseNoCounts() throws Exception {
+        int threads = 4;
+        int perThread = 50_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    aggregator.record("GET", "/api/user/me", 200, null, 1000);
+                }
+                done.countDown();
+            }).start();
+        }
+        AtomicBoolean finished = new AtomicBoolean();
+        Thread flusher = new Thread(() -> {
+            while (!finished.get()) {
+                aggregator.flush();
+            }
+        });
+        flusher.start();
+        done.await();
+        finished.set(true);
+        flusher.join();
+        aggregator.flush();
+
+        long total = 0;
+        for (AuditLog log : written) {
+            // Napůl přičtené Stats by se zapsalo s min=Long.MAX_VALUE
+            assertTrue(log.getNewValue().contains("minMs=0.001 "), log.getNewValue());
+            Matcher matcher = COUNT.matcher(log.getNewValue());
+            assertTrue(matcher.find());
+            total += Long.parseLong(matcher.group(1));
+        }
+        assertEquals((long) threads * perThread, total);
+    }
+
+    @Test
+    void errorsAreSampledSeparately() throws Exception {
+        RequestLoggingFilter everyError = new RequestLoggingFilter(auditService, aggregator, AccessLogMode.AGGREGATE, 1.0);
+        request(everyError, 200);
+        request(everyError, 500);
+        // Jen chyba jde do audit_log hned, úspěšný požadavek čeká na flush
+        assertEquals(1, written.size());
+        assertEquals("ACCESS", written.get(0).getActionType());
+        assertEquals(LogLevel.WARN, written.get(0).getLogLevel());
+
+        RequestLoggingFilter noErrors = new RequestLoggingFilter(auditService, aggregator, AccessLogMode.AGGREGATE, 0.0);
+        request(noErrors, 503);
+        assertEquals(1, written.size());
+
+        aggregator.flush();
+        // Souhrn obsahuje i vzorkováním vynechané chyby
+        assertEquals("GET /api/user/me 5xx", prefix(find("5xx")));
+        assertTrue(find("5xx").getNewValue().contains("count=2"));
+        assertTrue(find("2xx").getNewValue().contains("count=1"));
+    }
+
+    private static void request(RequestLoggingFilter filter, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/me");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/user/me");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(status);
+        filter.doFilter(request, response, new MockFilterChain());
+    }
+
+    private AuditLog find(String statusClass) {
+        return written.stream()
+                .filter(log -> "ACCESS_SUMMARY".equals(log.getActionType()) && log.getNewValue().contains(" " + statusClass + " "))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static String prefix(AuditLog log) {
+        return log.getNewValue().substring(0, log.getNewValue().indexOf(" count="));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.common.KeysetCursor;
+import com.example.enterpriseapp.dto.AuditLogFilter;
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditArchiveSegmentTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsRowsNewestFirst() throws Exception {
+        AuditArchiveSegment segment = writeSegment(1000);
+
+        List<AuditLog> out = new ArrayList<>();
+        segment.scanNewestFirst(new AuditLogFilter(), null, 1000, out);
+
+        assertEquals(1000, out.size());
+        AuditLog newest = out.get(0);
+        assertEquals(999L, newest.getId());
+        assertEquals(START.plusSeconds(999), newest.getTimestamp());
+        assertEquals("ACCESS", newest.getActionType());
+        assertEquals(LogLevel.INFO, newest.getLogLevel());
+        assertEquals("/api/user/999", newest.getNewValue());
+        assertNull(newest.getOldValue());
+        assertEquals(999L, newest.getEntityId());
+        assertNull(out.get(1).getEntityId());
+        assertEquals(0L, out.get(out.size() - 1).getId());
+    }
+
+    @Test
+    void appliesFiltersAndCursor() throws Exception {
+        AuditArchiveSegment segment = writeSegment(1000);
+
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setActionType("UPDATE_USER");
+        filter.setActorUserId(0L);
+        filter.setFrom(START.plusSeconds(100));
+        List<AuditLog> out = new ArrayList<>();
+        segment.scanNewestFirst(filter, new KeysetCursor(START.plusSeconds(900), 900L), 5, out);
+
+        assertEquals(5, out.size());
+        for (AuditLog log : out) {
+            assertEquals("UPDATE_USER", log.getActionType());
+            assertEquals(0L, log.getActorUserId());
+            assertTrue(log.getId() < 900);
+        }
+        assertEquals(890L, out.get(0).getId());
+
+        filter.setActionType("UNKNOWN");
+        List<AuditLog> none = new ArrayList<>();
+        segment.scanNewestFirst(filter, null, 5, none);
+        assertTrue(none.isEmpty());
+    }
+
+    private AuditArchiveSegment writeSegment(int count) throws Exception {
+        List<AuditLog> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AuditLog log = new AuditLog();
+            log.setId((long) i);
+            log.setTimestamp(START.plusSeconds(i));
+            log.setActorUserId((long) (i % 5));
+            log.setEntityName("users");
+            log.setEntityId(i % 2 == 0 ? null : (long) i);
+            log.setFieldName("path");
+            log.setNewValue("/api/user/" + i);
+            log.setActionType(i % 10 == 0 ? "UPDATE_USER" : "ACCESS");
+            log.setIpAddress("10.0.0." + (i % 3));
+            log.setLogLevel(LogLevel.INFO);
+            rows.add(log);
+        }
+        Path file = dir.resolve("test.aseg");
+        AuditArchiveSegment.write(file, rows);
+        return AuditArchiveSegment.open(file);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.dto.AuditLogFilter;
+import com.example.enterpriseapp.entity.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditArchiveTest {
+
+    // Mikrosekundy jako v DATETIME(6)
+    private static final LocalDateTime OLD = LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_456_000);
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private AuditArchive archive;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:archive-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE audit_log (id BIGINT PRIMARY KEY, timestamp DATETIME(6) NOT NULL, "
+                + "actor_user_id BIGINT, entity_name VARCHAR(255), entity_id BIGINT, field_name VARCHAR(255), "
+                + "old_value TEXT, new_value TEXT, action_type VARCHAR(50), ip_address VARCHAR(255), log_level VARCHAR(20))");
+        archive = newArchive();
+    }
+
+    @Test
+    void keepsMicrosecondsAndDeletesOnlyArchivedIds() {
+        insert(10, OLD);
+        insert(11, OLD.plusNanos(1000));
+
+        assertEquals(2, archive.archive());
+        assertEquals(0, count());
+
+        List<AuditLog> rows = archive.search(new AuditLogFilter(), null, 10);
+        assertEquals(List.of(11L, 10L), rows.stream().map(AuditLog::getId).toList());
+        assertEquals(OLD.plusNanos(1000), rows.get(0).getTimestamp());
+    }
+
+    @Test
+    void lateRowBehindArchivedKeyIsArchivedNotDeleted() {
+        insert(20, OLD.plusSeconds(10));
+        archive.archive();
+
+        // Zapsaný pozdě (např. obnova ze žurnálu) - starší klíč než poslední archivovaný
+        insert(5, OLD);
+        assertEquals(1, archive.archive());
+        assertEquals(0, count());
+
+        List<AuditLog> rows = archive.search(new AuditLogFilter(), null, 10);
+        assertEquals(List.of(20L, 5L), rows.stream().map(AuditLog::getId).toList());
+        assertEquals(1, archive.search(new AuditLogFilter(), null, 1).size());
+    }
+
+    @Test
+    void completesPendingSegmentAfterCrash() throws Exception {
+        insert(30, OLD);
+        insert(31, OLD.plusSeconds(1));
+        List<AuditLog> written = new ArrayList<>();
+        AuditLog row = new AuditLog();
+        row.setId(30L);
+        row.setTimestamp(OLD);
+        row.setEntityName("users");
+        row.setActionType("ACCESS");
+        written.add(row);
+        // Segment zapsaný těsně před pádem, řádek 30 ještě v tabulce
+        AuditArchiveSegment.write(dir.resolve("archive-crash.aseg.pending"), written);
+
+        AuditArchive restarted = newArchive();
+        assertTrue(restarted.search(new AuditLogFilter(), null, 10).isEmpty());
+        assertEquals(1, restarted.archive());
+
+        assertEquals(0, count());
+        assertEquals(List.of(31L, 30L), restarted.search(new AuditLogFilter(), null, 10).stream().map(AuditLog::getId).toList());
+        assertTrue(Files.exists(dir.resolve("archive-crash.aseg")));
+    }
+
+    private AuditArchive newArchive() throws Exception {
+        AuditArchive created = new AuditArchive(jdbcTemplate, new SimpleMeterRegistry(), true, dir, Duration.ofDays(90), 1000);
+        created.open();
+        return created;
+    }
+
+    private void insert(long id, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO audit_log (id, timestamp, entity_name, action_type, ip_address, log_level) "
+                + "VALUES (?, ?, 'users', 'ACCESS', '127.0.0.1', 'INFO')", id, Timestamp.valueOf(timestamp));
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_log", Integer.class);
+    }
+}
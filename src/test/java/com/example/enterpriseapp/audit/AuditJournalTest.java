@@ -0,0 +1,141 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysAppendedEventsAcrossSegments() throws Exception {
+        RecordingWriter writer = new RecordingWriter();
+        AuditJournal journal = newJournal(writer, 512);
+        journal.start();
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(journal.append(log(i)));
+        }
+        awaitSize(writer.inserted, 50);
+        journal.stop();
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals((long) i, writer.inserted.get(i).getEntityId());
+            assertEquals("value-" + i, writer.inserted.get(i).getNewValue());
+        }
+        assertNull(writer.inserted.get(0).getOldValue());
+        assertEquals(LogLevel.WARN, writer.inserted.get(1).getLogLevel());
+    }
+
+    @Test
+    void replaysUndeliveredEventsAfterRestart() throws Exception {
+        RecordingWriter failing = new RecordingWriter();
+        failing.fail = true;
+        AuditJournal journal = newJournal(failing, 4096);
+        journal.start();
+        for (int i = 0; i < 10; i++) {
+            journal.append(log(i));
+        }
+        journal.stop();
+        assertTrue(failing.inserted.isEmpty());
+
+        RecordingWriter writer = new RecordingWriter();
+        AuditJournal restarted = newJournal(writer, 4096);
+        restarted.start();
+        awaitSize(writer.inserted, 10);
+        restarted.stop();
+        assertEquals(9L, writer.inserted.get(9).getEntityId());
+    }
+
+    @Test
+    void permanentlyRejectedRecordIsDeadLetteredAndReplayContinues() throws Exception {
+        RecordingWriter writer = new RecordingWriter();
+        writer.rejectedEntityId = 3L;
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuditJournal journal = newJournal(writer, 4096, meterRegistry);
+        journal.start();
+
+        for (int i = 0; i < 10; i++) {
+            journal.append(log(i));
+        }
+        awaitSize(writer.inserted, 9);
+        journal.stop();
+
+        assertEquals(List.of(0L, 1L, 2L, 4L, 5L, 6L, 7L, 8L, 9L),
+                writer.inserted.stream().map(AuditLog::getEntityId).toList());
+        assertEquals(1.0, meterRegistry.counter("audit.journal.dead-lettered").count());
+        // Dead-letter soubor má stejné kódování jako segmenty
+        ByteBuffer deadLetter = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("dead-letter.seg")));
+        int size = AuditRecordCodec.validRecordSize(deadLetter, 0, deadLetter.limit());
+        assertEquals(deadLetter.limit(), size);
+        assertEquals(3L, AuditRecordCodec.read(deadLetter, 0).getEntityId());
+    }
+
+    private AuditJournal newJournal(AuditJdbcWriter writer, int segmentSize) {
+        return newJournal(writer, segmentSize, new SimpleMeterRegistry());
+    }
+
+    private AuditJournal newJournal(AuditJdbcWriter writer, int segmentSize, SimpleMeterRegistry meterRegistry) {
+        return new AuditJournal(writer, meterRegistry, Thread::new, true, dir, segmentSize, 8, Duration.ofMillis(5), 3);
+    }
+
+    private static AuditLog log(int i) {
+        AuditLog log = new AuditLog();
+        log.setTimestamp(LocalDateTime.of(2026, 1, 1, 12, 0).plusSeconds(i));
+        log.setActorUserId(i % 2 == 0 ? null : 7L);
+        log.setEntityName("User");
+        log.setEntityId((long) i);
+        log.setFieldName("email");
+        log.setNewValue("value-" + i);
+        log.setActionType("CHANGE_EMAIL");
+        log.setIpAddress("127.0.0.1");
+        log.setLogLevel(i % 2 == 0 ? LogLevel.INFO : LogLevel.WARN);
+        return log;
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, list.size());
+    }
+
+    private static class RecordingWriter extends AuditJdbcWriter {
+        private final List<AuditLog> inserted = new CopyOnWriteArrayList<>();
+        private volatile boolean fail;
+        private volatile Long rejectedEntityId;
+
+        RecordingWriter() {
+            super(null, 0);
+        }
+
+        @Override
+        public void insertBatch(List<AuditLog> logs) {
+            if (fail) {
+                throw new IllegalStateException("database down");
+            }
+            if (logs.stream().anyMatch(log -> log.getEntityId().equals(rejectedEntityId))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            inserted.addAll(logs);
+        }
+    }
+}
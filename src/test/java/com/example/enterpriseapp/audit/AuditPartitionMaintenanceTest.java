@@ -0,0 +1,61 @@
+package com.example.enterpriseapp.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AuditPartitionMaintenanceTest {
+
+    // H2 nezná PARTITION (...), dotaz rollupu se proto pouští přímo nad tabulkou
+    private static final String ROLLUP = AuditPartitionMaintenance.rollupSql("audit_log", 1, null);
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:rollup-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DAY,VALUE",
+                "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE audit_log (id BIGINT PRIMARY KEY, timestamp DATETIME(6) NOT NULL, "
+                + "action_type VARCHAR(50) NOT NULL, entity_name VARCHAR(255) NOT NULL, log_level VARCHAR(20) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE audit_log_daily_summary (id BIGINT AUTO_INCREMENT PRIMARY KEY, day DATE NOT NULL, "
+                + "action_type VARCHAR(50) NOT NULL, entity_name VARCHAR(255) NOT NULL, log_level VARCHAR(20) NOT NULL, "
+                + "event_count BIGINT NOT NULL, UNIQUE KEY uk_audit_summary (day, action_type, entity_name, log_level))");
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("INSERT INTO audit_log VALUES (?, ?, 'ACCESS', 'users', 'INFO')",
+                    i, Timestamp.valueOf(LocalDateTime.of(2025, 1, 10, 10, i)));
+        }
+    }
+
+    @Test
+    void rerunAfterPartialPurgeKeepsFullCount() {
+        jdbcTemplate.update(ROLLUP, "ACCESS");
+        assertEquals(3, summaryCount());
+
+        // Předchozí běh stihl smazat jen část řádků dne
+        jdbcTemplate.update("DELETE FROM audit_log WHERE id < 3");
+        jdbcTemplate.update(ROLLUP, "ACCESS");
+
+        assertEquals(3, summaryCount());
+    }
+
+    @Test
+    void rerunWithLateRowsRaisesCount() {
+        jdbcTemplate.update(ROLLUP, "ACCESS");
+        jdbcTemplate.update("INSERT INTO audit_log VALUES (4, TIMESTAMP '2025-01-10 23:00:00', 'ACCESS', 'users', 'INFO')");
+        jdbcTemplate.update(ROLLUP, "ACCESS");
+
+        assertEquals(4, summaryCount());
+    }
+
+    private long summaryCount() {
+        return jdbcTemplate.queryForObject("SELECT event_count FROM audit_log_daily_summary "
+                + "WHERE day = DATE '2025-01-10' AND action_type = 'ACCESS'", Long.class);
+    }
+}
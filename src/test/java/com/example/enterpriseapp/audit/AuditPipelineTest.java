@@ -0,0 +1,232 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.entity.AuditLog;
+import com.example.enterpriseapp.entity.LogLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditPipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecordingWriter writer = new RecordingWriter();
+    private AuditPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        writer.release.countDown();
+        writer.fail = false;
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void flushesFullBatchesWithoutWaitingForTheInterval() throws Exception {
+        start(100, 5, Duration.ofSeconds(1), AuditOverflowPolicy.BLOCK, Duration.ofSeconds(5));
+
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(log(i));
+        }
+
+        await(() -> writer.delivered() == 10);
+        assertEquals(List.of(5, 5), writer.batchSizes());
+    }
+
+    @Test
+    void flushesPartialBatchAfterTheInterval() throws Exception {
+        start(100, 100, Duration.ofMillis(50), AuditOverflowPolicy.BLOCK, Duration.ofSeconds(5));
+
+        for (int i = 0; i < 3; i++) {
+            pipeline.submit(log(i));
+        }
+
+        await(() -> writer.delivered() == 3);
+        assertEquals(List.of(3), writer.batchSizes());
+    }
+
+    @Test
+    void dropPolicyCountsEventsThatDoNotFit() throws Exception {
+        start(2, 1, Duration.ofMillis(10), AuditOverflowPolicy.DROP, Duration.ofSeconds(5));
+        occupyWriter();
+
+        for (int i = 1; i <= 5; i++) {
+            pipeline.submit(log(i));
+        }
+
+        assertEquals(3.0, meterRegistry.counter("audit.events.dropped").count());
+        writer.release.countDown();
+        await(() -> writer.delivered() == 3);
+    }
+
+    @Test
+    void spillPolicyWritesOverflowOnTheCallingThread() throws Exception {
+        start(2, 1, Duration.ofMillis(10), AuditOverflowPolicy.SPILL, Duration.ofSeconds(5));
+        occupyWriter();
+
+        for (int i = 1; i <= 5; i++) {
+            pipeline.submit(log(i));
+        }
+
+        assertEquals(3.0, meterRegistry.counter("audit.events.spilled").count());
+        assertEquals(3, writer.callerThreadInserts.get());
+        writer.release.countDown();
+        await(() -> writer.delivered() == 6);
+    }
+
+    @Test
+    void blockPolicyWaitsForFreeSpace() throws Exception {
+        start(1, 1, Duration.ofMillis(10), AuditOverflowPolicy.BLOCK, Duration.ofSeconds(5));
+        occupyWriter();
+        pipeline.submit(log(1));
+
+        CountDownLatch submitted = new CountDownLatch(1);
+        new Thread(() -> {
+            pipeline.submit(log(2));
+            submitted.countDown();
+        }).start();
+
+        // Fronta je plná, volající čeká
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+        writer.release.countDown();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        await(() -> writer.delivered() == 3);
+    }
+
+    @Test
+    void failedBatchIsRetriedUntilTheDatabaseIsBack() throws Exception {
+        start(100, 10, Duration.ofMillis(10), AuditOverflowPolicy.BLOCK, Duration.ofSeconds(5));
+        writer.fail = true;
+
+        for (int i = 0; i < 3; i++) {
+            pipeline.submit(log(i));
+        }
+        // Výpadek delší než dřívější tři pokusy (~600 ms)
+        await(() -> writer.attempts.get() >= 5);
+        writer.fail = false;
+
+        await(() -> writer.delivered() == 3);
+        assertEquals(0.0, meterRegistry.counter("audit.events.failed").count());
+    }
+
+    @Test
+    void stopDrainsTheQueue() throws Exception {
+        start(1000, 100, Duration.ofMillis(200), AuditOverflowPolicy.BLOCK, Duration.ofSeconds(5));
+        occupyWriter();
+        for (int i = 1; i <= 250; i++) {
+            pipeline.submit(log(i));
+        }
+
+        Thread stopping = new Thread(pipeline::stop);
+        stopping.start();
+        writer.release.countDown();
+        stopping.join(10_000);
+
+        // stop() se vrátí až po zápisu všeho, co bylo ve frontě
+        assertFalse(stopping.isAlive());
+        assertEquals(251, writer.delivered());
+        assertEquals(0.0, meterRegistry.counter("audit.events.failed").count());
+    }
+
+    @Test
+    void stopGivesUpAfterShutdownTimeout() {
+        start(100, 10, Duration.ofMillis(10), AuditOverflowPolicy.BLOCK, Duration.ofMillis(300));
+        writer.fail = true;
+
+        for (int i = 0; i < 4; i++) {
+            pipeline.submit(log(i));
+        }
+        long start = System.nanoTime();
+        pipeline.stop();
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(4.0, meterRegistry.counter("audit.events.failed").count());
+        assertEquals(0, writer.delivered());
+    }
+
+    private void start(int capacity, int batchSize, Duration flushInterval, AuditOverflowPolicy policy, Duration shutdownTimeout) {
+        pipeline = new AuditPipeline(writer, meterRegistry, Thread::new, true, capacity, batchSize, flushInterval,
+                policy, shutdownTimeout);
+        pipeline.start();
+    }
+
+    // Writer zůstane viset v zápisu první události, fronta se pak plní bez odběru
+    private void occupyWriter() throws InterruptedException {
+        writer.blocking = true;
+        pipeline.submit(log(0));
+        assertTrue(writer.entered.await(5, TimeUnit.SECONDS));
+    }
+
+    private static AuditLog log(int i) {
+        AuditLog log = new AuditLog();
+        log.setTimestamp(LocalDateTime.of(2026, 1, 1, 12, 0).plusSeconds(i));
+        log.setEntityName("User");
+        log.setEntityId((long) i);
+        log.setActionType("CHANGE_EMAIL");
+        log.setIpAddress("127.0.0.1");
+        log.setLogLevel(LogLevel.INFO);
+        return log;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static class RecordingWriter extends AuditJdbcWriter {
+        private final List<List<AuditLog>> batches = new CopyOnWriteArrayList<>();
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger callerThreadInserts = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean fail;
+        private volatile boolean blocking;
+
+        RecordingWriter() {
+            super(null, 0);
+        }
+
+        @Override
+        public void insertBatch(List<AuditLog> logs) {
+            if (!"audit-writer".equals(Thread.currentThread().getName())) {
+                callerThreadInserts.incrementAndGet();
+            } else if (blocking) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            attempts.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("database down");
+            }
+            batches.add(List.copyOf(logs));
+        }
+
+        int delivered() {
+            return batches.stream().mapToInt(List::size).sum();
+        }
+
+        List<Integer> batchSizes() {
+            return batches.stream().map(List::size).toList();
+        }
+    }
+}
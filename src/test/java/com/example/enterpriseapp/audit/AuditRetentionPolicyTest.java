@@ -0,0 +1,37 @@
+package com.example.enterpriseapp.audit;
+
+import com.example.enterpriseapp.entity.LogLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AuditRetentionPolicyTest {
+
+    private final AuditRetentionPolicy policy = new AuditRetentionPolicy(365, "ERROR:730", "ACCESS:90");
+
+    @Test
+    void actionTypeOverridesLogLevel() {
+        assertEquals(90, policy.retentionDays(LogLevel.ERROR, "ACCESS"));
+        assertEquals(730, policy.retentionDays(LogLevel.ERROR, "UPDATE_USER"));
+        assertEquals(365, policy.retentionDays(LogLevel.INFO, "UPDATE_USER"));
+        assertEquals(730, policy.maxRetentionDays());
+    }
+
+    @Test
+    void expiredConditionGrowsWithPartitionAge() {
+        assertNull(policy.expiredCondition(30, new ArrayList<>()));
+
+        List<Object> params = new ArrayList<>();
+        assertEquals("(action_type = ?)", policy.expiredCondition(100, params));
+        assertEquals(List.of("ACCESS"), params);
+
+        params.clear();
+        assertEquals("(action_type = ? OR (1 = 1 AND log_level NOT IN (?) AND action_type NOT IN (?)))",
+                policy.expiredCondition(400, params));
+        assertEquals(List.of("ACCESS", "ERROR", "ACCESS"), params);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.enterpriseapp.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void idsAreStrictlyIncreasingAndCarryTimestamp() {
+        TimeOrderedIds ids = TimeOrderedIds.forNode(1);
+        long before = System.currentTimeMillis();
+        long previous = ids.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long next = ids.nextId();
+            assertTrue(next > previous);
+            previous = next;
+        }
+        assertTrue(TimeOrderedIds.timestampMillis(previous) >= before);
+        assertSame(ids, TimeOrderedIds.forNode(1));
+        assertThrows(IllegalArgumentException.class, () -> TimeOrderedIds.forNode(TimeOrderedIds.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    void concurrentCallersNeverGetTheSameId() throws Exception {
+        TimeOrderedIds ids = TimeOrderedIds.forNode(2);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    seen.add(ids.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(160_000, seen.size());
+    }
+}
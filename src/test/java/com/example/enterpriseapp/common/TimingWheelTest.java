@@ -0,0 +1,56 @@
+package com.example.enterpriseapp.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void expiresEachValueAtItsDeadlineAcrossAllLevels() {
+        long start = 1_000_000L;
+        TimingWheel<Long> wheel = new TimingWheel<>(1000, start);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Od sekund po ~2 dny, tedy přes všechny úrovně kola
+            long deadline = start + 1000 + (long) (random.nextDouble() * 200_000_000L);
+            deadlines.add(deadline);
+            assertTrue(wheel.schedule(deadline, deadline));
+        }
+        assertEquals(5_000, wheel.size());
+        assertFalse(wheel.schedule(start, start));
+
+        List<Long> expired = new ArrayList<>();
+        long now = start;
+        while (wheel.size() > 0) {
+            now += 7_000;
+            long current = now;
+            wheel.advance(now, deadline -> {
+                assertTrue(deadline <= current, "expired early");
+                assertTrue(deadline > current - 8_000, "expired late");
+                expired.add(deadline);
+            });
+        }
+        assertEquals(deadlines.size(), expired.size());
+    }
+
+    @Test
+    void keepsDeadlinesBeyondTheWheelRange() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        long far = (1L << 24) * 3 + 5;
+        wheel.schedule("far", far);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(far - 1, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(far, expired::add);
+        assertEquals(List.of("far"), expired);
+    }
+}
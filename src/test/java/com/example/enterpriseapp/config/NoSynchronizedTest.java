@@ -0,0 +1,70 @@
+package com.example.enterpriseapp.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ve virtuálním režimu nesmí náš kód držet monitor (synchronized) - vlákno, které pod ním
+ * čeká na JDBC nebo IO, přišpendlí nosné vlákno. Zámky jsou ReentrantLock.
+ */
+class NoSynchronizedTest {
+
+    private static final Path SOURCES = Path.of("src/main/java");
+    private static final Pattern SYNCHRONIZED = Pattern.compile("\\bsynchronized\\b");
+
+    @Test
+    void mainSourcesUseNoMonitors() throws IOException {
+        List<String> offenders;
+        try (Stream<Path> files = Files.walk(SOURCES)) {
+            offenders = files.filter(path -> path.toString().endsWith(".java"))
+                    .filter(path -> SYNCHRONIZED.matcher(code(read(path))).find())
+                    .map(path -> SOURCES.relativize(path).toString())
+                    .sorted()
+                    .toList();
+        }
+        assertEquals(List.of(), offenders, "synchronized in main sources, use ReentrantLock");
+    }
+
+    private static String read(Path path) {
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Zdroják bez komentářů a řetězců - zmínka v komentáři nevadí
+    private static String code(String source) {
+        StringBuilder code = new StringBuilder(source.length());
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (source.startsWith("//", i)) {
+                int end = source.indexOf('\n', i);
+                i = end < 0 ? source.length() : end;
+            } else if (source.startsWith("/*", i)) {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? source.length() : end + 2;
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < source.length() && source.charAt(i) != c) {
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+                code.append(' ');
+            } else {
+                code.append(c);
+                i++;
+            }
+        }
+        return code.toString();
+    }
+}
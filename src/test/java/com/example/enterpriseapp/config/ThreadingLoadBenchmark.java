@@ -0,0 +1,201 @@
+package com.example.enterpriseapp.config;
+
+import com.example.enterpriseapp.EnterpriseAppApplication;
+import com.example.enterpriseapp.entity.User;
+import com.example.enterpriseapp.repository.UserRepository;
+import com.example.enterpriseapp.security.JwtUtil;
+import com.example.enterpriseapp.service.RoleRegistry;
+import com.example.enterpriseapp.service.UserCache;
+import com.example.enterpriseapp.service.UserSnapshot;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zátěžové porovnání platformních a virtuálních vláken: aplikace nad H2, N souběžných klientů
+ * (každý má vlastní spojení a posílá další požadavek, jakmile dostane odpověď) na GET /api/user/me.
+ * Na konci vypíše propustnost, chyby a p50/p99 latence. Není to test - surefire ho nespouští.
+ * <p>
+ * Spuštění (argumenty: režim, počet spojení, délka měření v sekundách, další --klíč=hodnota
+ * se předají Springu):
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.enterpriseapp.config.ThreadingLoadBenchmark -Dexec.args="platform 5000 30"
+ * mvn -Pjava21 test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.enterpriseapp.config.ThreadingLoadBenchmark -Dexec.args="virtual 5000 30"
+ * </pre>
+ * Klient i server běží v jedné JVM, 5000 spojení tak potřebuje přes 10 000 deskriptorů (ulimit -n).
+ * Pool spojení je v každém režimu takový, jak ho nastavuje jeho profil.
+ */
+public final class ThreadingLoadBenchmark {
+
+    private static final String USERNAME = "loadtest";
+
+    private ThreadingLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "platform";
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        boolean virtual = "virtual".equals(mode);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtuální vlákna potřebují Javu 21 (mvn -Pjava21)");
+        }
+
+        List<String> properties = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DAY,VALUE;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--app.jwt.keys.dir=",
+                "--app.rate-limit.enabled=false",
+                "--logging.level.root=WARN"));
+        if (virtual) {
+            properties.add("--spring.profiles.active=virtual");
+        }
+        properties.addAll(Arrays.asList(args).subList(Math.min(args.length, 3), args.length));
+
+        try (ConfigurableApplicationContext context = new SpringApplication(EnterpriseAppApplication.class)
+                .run(properties.toArray(String[]::new))) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/user/me"))
+                    .header("Authorization", "Bearer " + token(context))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+
+            Result result = run(request, connections, duration);
+            Timer latency = result.latency();
+            System.out.printf("%s: virtuální vlákna %s, Java %d, %d spojení, %d s%n", mode,
+                    Threading.VIRTUAL.isActive(context.getEnvironment()) ? "zapnuta" : "vypnuta",
+                    Runtime.version().feature(), connections, duration.toSeconds());
+            System.out.printf("úspěšných požadavků %d (%.0f/s), chyb %d, p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    latency.count(), latency.count() / (double) duration.toSeconds(), result.errors().sum(),
+                    percentile(latency, 0.5), percentile(latency, 0.99), latency.max(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    // Uživatel s pracovním snapshotem v cache, jako po prvním požadavku
+    private static String token(ConfigurableApplicationContext context) {
+        // Schéma jako v ReadMe: READ_USER se zapisuje bez field_name, ddl-auto ho ale vytvoří NOT NULL
+        context.getBean(JdbcTemplate.class).execute("ALTER TABLE audit_log ALTER COLUMN field_name SET NULL");
+        RoleRegistry roleRegistry = context.getBean(RoleRegistry.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setEmail(USERNAME + "@example.com");
+            user.setPassword(new BCryptPasswordEncoder(4).encode("Secret123!"));
+            user.setRoles(new HashSet<>(Set.of(roleRegistry.resolve("ROLE_USER"))));
+            userRepository.save(user);
+        });
+        UserSnapshot user = context.getBean(UserCache.class).findByUsername(USERNAME);
+        return context.getBean(JwtUtil.class)
+                .generateAccessToken(user.getUsername(), user.getId(), user.getRoles(), user.getVersion());
+    }
+
+    // Náběh spojení po dávkách (accept-count), pak zahřátí; měří se až poslední `duration`
+    private static Result run(HttpRequest request, int connections, Duration duration) throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        Timer latency = Timer.builder("load.latency")
+                .publishPercentiles(0.5, 0.99)
+                .distributionStatisticExpiry(duration.plusMinutes(1))
+                .distributionStatisticBufferLength(1)
+                .register(new SimpleMeterRegistry());
+        LongAdder errors = new LongAdder();
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        long until = measureFrom + duration.toNanos();
+
+        List<CompletableFuture<Void>> clients = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            if (i > 0 && i % 200 == 0) {
+                Thread.sleep(50);
+            }
+            Client c = new Client(client, request, measureFrom, until, latency, errors);
+            c.next();
+            clients.add(c.done);
+        }
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+        clientExecutor.shutdownNow();
+        return new Result(latency, errors);
+    }
+
+    private static double percentile(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private record Result(Timer latency, LongAdder errors) {
+    }
+
+    // Uzavřená smyčka jednoho klienta; další požadavek až po odpovědi
+    private static final class Client {
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final long measureFrom;
+        private final long until;
+        private final Timer latency;
+        private final LongAdder errors;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Client(HttpClient client, HttpRequest request, long measureFrom, long until, Timer latency, LongAdder errors) {
+            this.client = client;
+            this.request = request;
+            this.measureFrom = measureFrom;
+            this.until = until;
+            this.latency = latency;
+            this.errors = errors;
+        }
+
+        void next() {
+            long start = System.nanoTime();
+            if (start - until >= 0) {
+                done.complete(null);
+                return;
+            }
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                if (start - measureFrom >= 0) {
+                    if (error != null || response.statusCode() != 200) {
+                        errors.increment();
+                    } else {
+                        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+                next();
+            });
+        }
+    }
+}
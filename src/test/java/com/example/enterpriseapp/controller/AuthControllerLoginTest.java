@@ -0,0 +1,77 @@
+package com.example.enterpriseapp.controller;
+
+import com.example.enterpriseapp.repository.UserRepository;
+import com.example.enterpriseapp.service.AuditService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Registrace a přihlášení se dokončují asynchronně - servletové vlákno nečeká na BCrypt.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auth-login;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DAY,VALUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.jwt.keys.dir=",
+        "app.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+class AuthControllerLoginTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private AuditService auditService;
+
+    @Test
+    void registerAndLoginCompleteAsynchronously() throws Exception {
+        perform("/api/auth/register", "{\"username\":\"bob\",\"email\":\"bob@example.com\",\"password\":\"Secret123!\"}")
+                .andExpect(status().isOk());
+        assertTrue(userRepository.existsByUsername("bob"));
+
+        perform("/api/auth/login", "{\"username\":\"bob\",\"password\":\"Secret123!\"}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.accessToken").isNotEmpty())
+                .andExpect(jsonPath("$.data.refreshToken").isNotEmpty());
+    }
+
+    @Test
+    void wrongPasswordAndUnknownUserAreRejectedAlike() throws Exception {
+        perform("/api/auth/register", "{\"username\":\"carol\",\"email\":\"carol@example.com\",\"password\":\"Secret123!\"}")
+                .andExpect(status().isOk());
+
+        perform("/api/auth/login", "{\"username\":\"carol\",\"password\":\"wrong\"}")
+                .andExpect(jsonPath("$.errorCode").value(401))
+                .andExpect(jsonPath("$.description").value("Invalid username or password"));
+        perform("/api/auth/login", "{\"username\":\"nobody\",\"password\":\"wrong\"}")
+                .andExpect(jsonPath("$.errorCode").value(401))
+                .andExpect(jsonPath("$.description").value("Invalid username or password"));
+    }
+
+    // První průchod jen spustí async zpracování, výsledek přinese až async dispatch
+    private ResultActions perform(String url, String body) throws Exception {
+        MvcResult started = mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.enterpriseapp.controller;
+
+import com.example.enterpriseapp.entity.RefreshToken;
+import com.example.enterpriseapp.entity.User;
+import com.example.enterpriseapp.repository.UserRepository;
+import com.example.enterpriseapp.security.JwtUtil;
+import com.example.enterpriseapp.service.AuditService;
+import com.example.enterpriseapp.service.RefreshTokenService;
+import com.example.enterpriseapp.service.RoleRegistry;
+import com.example.enterpriseapp.service.UserCache;
+import com.example.enterpriseapp.service.UserSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Odhlášení a odvolání tokenů přes skutečný řetězec filtrů.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auth-logout;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DAY,VALUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.jwt.keys.dir=",
+        "app.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+class AuthControllerLogoutTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private AuditService auditService;
+
+    private UserSnapshot alice;
+
+    @BeforeEach
+    void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.findWithRolesByUsername("alice").ifPresent(userRepository::delete);
+            User user = new User();
+            user.setUsername("alice");
+            user.setEmail("alice@example.com");
+            user.setPassword("unused");
+            user.setRoles(new HashSet<>(Set.of(roleRegistry.resolve("ROLE_USER"))));
+            userRepository.save(user);
+        });
+        userCache.invalidateAll();
+        alice = userCache.findByUsername("alice");
+    }
+
+    @Test
+    void logoutRevokesOnlyThePresentedAccessToken() throws Exception {
+        String loggedOut = accessToken();
+        String otherDevice = accessToken();
+
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + loggedOut))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/user/me").header("Authorization", "Bearer " + loggedOut))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.errorCode").value(40102));
+        mockMvc.perform(get("/api/user/me").header("Authorization", "Bearer " + otherDevice))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void logoutRevokesRefreshTokenFamily() throws Exception {
+        RefreshToken stored = refreshTokenService.issue(alice.getId(), null);
+        String refreshToken = jwtUtil.generateRefreshToken(alice.getUsername(), alice.getId(), stored.getId(), stored.getFamilyId());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + accessToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(jsonPath("$.errorCode").value(401));
+    }
+
+    @Test
+    void notBeforeWrittenByAnotherNodeRevokesOlderTokens() throws Exception {
+        String issued = accessToken();
+        // Odvolání z jiného uzlu: sloupec v DB, tento uzel ho uvidí s novým snapshotem
+        jdbcTemplate.update("UPDATE users SET tokens_valid_after = ? WHERE id = ?",
+                LocalDateTime.now(ZoneOffset.UTC).plusSeconds(1), alice.getId());
+        userCache.invalidateAll();
+
+        mockMvc.perform(get("/api/user/me").header("Authorization", "Bearer " + issued))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.errorCode").value(40102));
+    }
+
+    @Test
+    void refreshTokenIssuedBeforeNotBeforeIsRejected() throws Exception {
+        RefreshToken stored = refreshTokenService.issue(alice.getId(), null);
+        String refreshToken = jwtUtil.generateRefreshToken(alice.getUsername(), alice.getId(), stored.getId(), stored.getFamilyId());
+        jdbcTemplate.update("UPDATE users SET tokens_valid_after = ? WHERE id = ?",
+                LocalDateTime.now(ZoneOffset.UTC).plusSeconds(1), alice.getId());
+        userCache.invalidateAll();
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(jsonPath("$.errorCode").value(401));
+    }
+
+    private String accessToken() {
+        return jwtUtil.generateAccessToken(alice.getUsername(), alice.getId(), alice.getRoles(), alice.getVersion());
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.enterpriseapp.controller;
+
+import com.example.enterpriseapp.entity.User;
+import com.example.enterpriseapp.repository.UserRepository;
+import com.example.enterpriseapp.security.JwtUtil;
+import com.example.enterpriseapp.service.AuditService;
+import com.example.enterpriseapp.service.RoleRegistry;
+import com.example.enterpriseapp.service.UserCache;
+import com.example.enterpriseapp.service.UserSnapshot;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Hlídá počet SQL příkazů na endpoint (a podmíněné GET bez dotazů). Přihlášený i cílový uživatel jsou v UserCache
+ * (běžný stav), takže se počítá jen práce samotného endpointu. Audit je mock - zapisuje
+ * se asynchronně a mimo požadavek.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-count;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DAY,VALUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.jwt.keys.dir=",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "app.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+class UserControllerStatementCountTest {
+
+    private static final String PASSWORD = "Secret123!";
+    // BCrypt s nízkou cenou, ať test netráví čas hashováním
+    private static final String PASSWORD_HASH = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private AuditService auditService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!roleRegistry.exists("ROLE_ADMIN")) {
+            roleRegistry.create("ROLE_ADMIN");
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.findWithRolesByUsername("alice").ifPresent(userRepository::delete);
+            userRepository.findWithRolesByUsername("root").ifPresent(userRepository::delete);
+        });
+        createUser("alice", "ROLE_USER");
+        createUser("root", "ROLE_ADMIN");
+        userCache.invalidateAll();
+    }
+
+    @Test
+    void currentUserIsServedFromSnapshotWithoutQueries() throws Exception {
+        assertStatements(0, authorized(get("/api/user/me"), "alice"));
+    }
+
+    @Test
+    void unchangedCurrentUserIsNotModifiedWithoutQueries() throws Exception {
+        String eTag = mockMvc.perform(authorized(get("/api/user/me"), "alice"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        statistics.clear();
+        mockMvc.perform(authorized(get("/api/user/me"), "alice").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+        assertEquals(0, statistics.getPrepareStatementCount(), "SQL statements");
+        // Audit jen u první (plné) odpovědi
+        verify(auditService, times(1)).logChange(any(), any(), eq("READ_USER"), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void changedUserGetsNewETag() throws Exception {
+        String eTag = mockMvc.perform(authorized(get("/api/user/alice"), "root"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(authorized(patch("/api/user/alice/roles"), "root")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"ROLE_USER\",\"ROLE_ADMIN\"]"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(authorized(get("/api/user/alice"), "root").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    void adminConditionalGetSeesChangeBehindTheCache() throws Exception {
+        String eTag = mockMvc.perform(authorized(get("/api/user/alice"), "root"))
+                .andReturn().getResponse().getHeader("ETag");
+        statistics.clear();
+        mockMvc.perform(authorized(get("/api/user/alice"), "root").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        assertEquals(1, statistics.getPrepareStatementCount(), "SQL statements");
+
+        // Změna z jiného uzlu - UserCache tady o ní neví
+        changeBehindCache("alice");
+        mockMvc.perform(authorized(get("/api/user/alice"), "root").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    void currentUserVersionFollowsTheSnapshot() throws Exception {
+        String eTag = mockMvc.perform(authorized(get("/api/user/me"), "alice"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Změnu z jiného uzlu /me vidí až s novým snapshotem (invalidace nebo app.user-cache.ttl)
+        changeBehindCache("alice");
+        mockMvc.perform(authorized(get("/api/user/me"), "alice").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        userCache.invalidateAll();
+        mockMvc.perform(authorized(get("/api/user/me"), "alice").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    void changeMyEmailIsOneUpdate() throws Exception {
+        assertStatements(1, authorized(patch("/api/user/me/change-email"), "alice")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"newEmail\":\"alice@new.example\"}"));
+    }
+
+    @Test
+    void changeMyPasswordIsOneUpdate() throws Exception {
+        // Heslo i not-before tokenů v jednom UPDATE users, refresh_tokens se nemění
+        assertStatements(1, authorized(patch("/api/user/me/change-password"), "alice")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"oldPassword\":\"" + PASSWORD + "\",\"newPassword\":\"Changed123!\"}"));
+    }
+
+    @Test
+    void adminReadsUserWithOneQuery() throws Exception {
+        warm("alice");
+        assertStatements(1, authorized(get("/api/user/alice"), "root"));
+    }
+
+    @Test
+    void adminChangeEmailIsOneUpdate() throws Exception {
+        warm("alice");
+        assertStatements(1, authorized(patch("/api/user/alice/change-email"), "root")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"newEmail\":\"alice@admin.example\"}"));
+    }
+
+    @Test
+    void updateRolesReadsOnceAndWritesTheDifference() throws Exception {
+        warm("alice");
+        // SELECT uživatele i s rolemi + UPDATE users + INSERT users_roles
+        assertStatements(3, authorized(patch("/api/user/alice/roles"), "root")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"ROLE_USER\",\"ROLE_ADMIN\"]"));
+    }
+
+    @Test
+    void deleteUserWritesWithoutLoadingTheEntity() throws Exception {
+        warm("alice");
+        // DELETE users_roles + DELETE users (bulk delete vlastníka @ManyToMany); tokeny smazaného uživatele
+        // odmítne AccessTokenDenylist bez dalšího zápisu
+        assertStatements(2, authorized(delete("/api/user/alice/delete"), "root"));
+    }
+
+    // --- Pomocné metody ---
+
+    private void assertStatements(long expected, MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            // Změny hesla dokončí pokračování po BCryptu
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements");
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request, String username) {
+        UserSnapshot user = warm(username);
+        String token = jwtUtil.generateAccessToken(user.getUsername(), user.getId(), user.getRoles(), user.getVersion());
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    // Snapshot v cache jako po předchozím požadavku téhož uživatele
+    private UserSnapshot warm(String username) {
+        return userCache.findByUsername(username);
+    }
+
+    private void changeBehindCache(String username) {
+        jdbcTemplate.update("UPDATE users SET email = ?, updated_at = ? WHERE username = ?",
+                username + "@elsewhere.example", LocalDateTime.now().plusSeconds(1), username);
+    }
+
+    private void createUser(String username, String role) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = new User();
+            user.setUsername(username);
+            user.setEmail(username + "@example.com");
+            user.setPassword(PASSWORD_HASH);
+            user.setRoles(new HashSet<>(Set.of(roleRegistry.resolve(role))));
+            userRepository.save(user);
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.enterpriseapp.security;
+
+import com.example.enterpriseapp.service.UserCache;
+import com.example.enterpriseapp.service.UserSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessTokenDenylistTest {
+
+    private static final long USER_ID = 42L;
+    // Okamžik odvolání uprostřed sekundy
+    private static final long REVOKED_AT = 1_767_225_600_500L;
+
+    private final UserCache userCache = mock(UserCache.class);
+    private final AccessTokenDenylist denylist = new AccessTokenDenylist(1000, new SimpleMeterRegistry(), userCache);
+
+    @Test
+    void notBeforeIsTruncatedToSeconds() {
+        assertEquals(LocalDateTime.of(2026, 1, 1, 0, 0, 0), AccessTokenDenylist.notBefore(REVOKED_AT));
+    }
+
+    @Test
+    void loginInTheSecondOfRevocationIsAccepted() {
+        UserSnapshot user = user(AccessTokenDenylist.notBefore(REVOKED_AT));
+
+        assertFalse(denylist.isRevoked(token("fresh", REVOKED_AT + 100), user));
+        assertFalse(denylist.isRevoked(token("next-second", REVOKED_AT + 1000), user));
+        assertTrue(denylist.isRevoked(token("old", REVOKED_AT - 1000), user));
+    }
+
+    @Test
+    void notBeforeIsReadFromUserCacheWithoutSnapshot() {
+        when(userCache.findById(USER_ID)).thenReturn(user(AccessTokenDenylist.notBefore(REVOKED_AT)));
+
+        assertTrue(denylist.isRevoked(token("old", REVOKED_AT - 1000)));
+        assertFalse(denylist.isRevoked(token("fresh", REVOKED_AT)));
+    }
+
+    @Test
+    void tokensOfDeletedUserAreRevoked() {
+        assertTrue(denylist.isRevoked(token("orphan", REVOKED_AT), null));
+        // UserCache vrací pro neexistujícího uživatele null
+        assertTrue(denylist.isRevoked(token("orphan", REVOKED_AT)));
+    }
+
+    @Test
+    void logoutRevokesOnlyThePresentedToken() {
+        UserSnapshot user = user(null);
+        long now = System.currentTimeMillis();
+        VerifiedToken loggedOut = token("logged-out", now);
+
+        denylist.revoke(loggedOut);
+
+        assertTrue(denylist.isRevoked(loggedOut, user));
+        assertFalse(denylist.isRevoked(token("other-device", now), user));
+    }
+
+    private static UserSnapshot user(LocalDateTime tokensValidAfter) {
+        return new UserSnapshot(USER_ID, "alice", "alice@example.com", "hash", Set.of("ROLE_USER"),
+                LocalDateTime.of(2025, 1, 1, 0, 0), 1L, tokensValidAfter);
+    }
+
+    // iat v JWT má sekundovou přesnost
+    private static VerifiedToken token(String tokenId, long issuedAtMillis) {
+        long issuedAt = issuedAtMillis / 1000 * 1000;
+        return new VerifiedToken("alice", USER_ID, issuedAt, System.currentTimeMillis() + 60_000,
+                List.of("ROLE_USER"), 0L, tokenId, null);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.enterpriseapp.security;
+
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtKeyManagerTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Duration ROTATION = Duration.ofDays(30);
+    private static final Duration ACTIVATION = Duration.ofHours(1);
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void nodesSharingTheKeyDirectoryVerifyEachOthersTokens() {
+        MutableClock clock = new MutableClock();
+        JwtKeyManager nodeA = newManager(clock);
+        JwtKeyManager nodeB = newManager(clock);
+
+        String token = jwtUtil(nodeA).generateAccessToken("alice", 1L);
+        assertEquals("alice", jwtUtil(nodeB).verify(token).getUsername());
+
+        // Klíč vzniklý na jiném uzlu po startu se načte při prvním neznámém kid
+        clock.advance(ROTATION);
+        nodeA.maintain();
+        clock.advance(ACTIVATION);
+        String rotated = jwtUtil(nodeA).generateAccessToken("bob", 2L);
+        assertEquals("bob", jwtUtil(nodeB).verify(rotated).getUsername());
+    }
+
+    @Test
+    void rotatesWithOverlapAndDeletesRetiredKeys() {
+        MutableClock clock = new MutableClock();
+        JwtKeyManager manager = newManager(clock);
+        JwtUtil jwtUtil = jwtUtil(manager);
+        String first = manager.signingKey().getKid();
+        String oldToken = jwtUtil.generateAccessToken("alice", 1L);
+
+        // Nástupce se nejdřív jen publikuje
+        clock.advance(ROTATION.minus(ACTIVATION));
+        manager.maintain();
+        assertEquals(2, keys(manager).size());
+        assertEquals(first, manager.signingKey().getKid());
+
+        clock.advance(ACTIVATION);
+        manager.maintain();
+        assertNotEquals(first, manager.signingKey().getKid());
+        assertNotNull(manager.verificationKey(first));
+        assertEquals("alice", jwtUtil.verify(oldToken).getUsername());
+
+        // Po retenci zmizí starý klíč z JWKS i z ověřování
+        clock.advance(RETENTION);
+        manager.maintain();
+        assertEquals(1, keys(manager).size());
+        assertNull(manager.verificationKey(first));
+        assertThrows(SignatureException.class, () -> jwtUtil.verify(oldToken));
+    }
+
+    @Test
+    void fallsBackToHmacFromTheConfiguredSecret() {
+        JwtKeyManager nodeA = new JwtKeyManager(Clock.systemUTC(), null, "MySuperSecretKeyMySuperSecretKey",
+                ROTATION, ACTIVATION, RETENTION);
+        JwtKeyManager nodeB = new JwtKeyManager(Clock.systemUTC(), null, "MySuperSecretKeyMySuperSecretKey",
+                ROTATION, ACTIVATION, RETENTION);
+
+        String token = jwtUtil(nodeA).generateAccessToken("alice", 1L);
+        assertEquals("alice", jwtUtil(nodeB).verify(token).getUsername());
+        assertEquals(0, keys(nodeA).size());
+    }
+
+    private JwtKeyManager newManager(Clock clock) {
+        JwtKeyManager manager = new JwtKeyManager(clock, dir, "unused", ROTATION, ACTIVATION, RETENTION);
+        manager.init();
+        return manager;
+    }
+
+    // Tokeny s dlouhou platností, aby neexpirovaly při posunu testovacích hodin
+    private static JwtUtil jwtUtil(JwtKeyManager manager) {
+        return new JwtUtil(Duration.ofDays(365).toMillis(), Duration.ofDays(365).toMillis(),
+                new VerifiedTokenCache(0, new SimpleMeterRegistry()), manager);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> keys(JwtKeyManager manager) {
+        return (List<Map<String, Object>>) manager.jwks().get("keys");
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = START;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.enterpriseapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginThrottleTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void locksOutUsernameWithExponentialBackoff() {
+        MutableClock clock = new MutableClock();
+        LoginThrottle throttle = newThrottle(clock);
+
+        for (int i = 0; i < 4; i++) {
+            throttle.recordFailure("alice", "10.0.0." + i);
+            assertEquals(0, throttle.retryAfterSeconds("alice", "10.0.0.99"));
+        }
+        throttle.recordFailure("alice", "10.0.0.4");
+        assertEquals(1, throttle.retryAfterSeconds("alice", "10.0.0.99"));
+        assertEquals(0, throttle.retryAfterSeconds("bob", "10.0.0.99"));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(0, throttle.retryAfterSeconds("alice", "10.0.0.99"));
+        throttle.recordFailure("alice", "10.0.0.5");
+        throttle.recordFailure("alice", "10.0.0.6");
+        assertEquals(4, throttle.retryAfterSeconds("alice", "10.0.0.99"));
+
+        // Po dvou oknech jsou staré neúspěchy zapomenuté
+        clock.advance(Duration.ofMinutes(30));
+        assertEquals(0, throttle.retryAfterSeconds("alice", "10.0.0.99"));
+    }
+
+    @Test
+    void locksOutIpAcrossUsernames() {
+        LoginThrottle throttle = newThrottle(new MutableClock());
+
+        for (int i = 0; i < 50; i++) {
+            throttle.recordFailure("user" + i, "192.168.1.1");
+        }
+        assertTrue(throttle.retryAfterSeconds("someone-else", "192.168.1.1") > 0);
+        assertEquals(0, throttle.retryAfterSeconds("someone-else", "192.168.1.2"));
+    }
+
+    private static LoginThrottle newThrottle(Clock clock) {
+        return new LoginThrottle(new SimpleMeterRegistry(), clock, true, Duration.ofMinutes(15), 5, 50,
+                Duration.ofSeconds(1), Duration.ofMinutes(15), 1024);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = START;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
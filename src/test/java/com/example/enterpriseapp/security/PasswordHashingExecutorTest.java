@@ -0,0 +1,54 @@
+package com.example.enterpriseapp.security;
+
+import com.example.enterpriseapp.exception.RetryLaterException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingExecutorTest {
+
+    @Test
+    void rejectsWithRetryAfterWhenQueueIsFull() throws Exception {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(2));
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> running = executor.submit(() -> await(release));
+        CompletableFuture<Boolean> queued = executor.submit(() -> await(release));
+        RetryLaterException rejected = assertThrows(RetryLaterException.class, () -> executor.submit(() -> true));
+        assertEquals(503, rejected.getStatus());
+        assertEquals(2, rejected.getRetryAfterSeconds());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void nestedCallsRunInlineOnHashingThread() throws Exception {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(1));
+
+        // S jediným vláknem by vnořené čekání na frontu skončilo deadlockem
+        String result = executor.submit(() -> executor.call(() -> Thread.currentThread().getName())).get(5, TimeUnit.SECONDS);
+
+        assertEquals("password-hashing-1", result);
+        executor.shutdown();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
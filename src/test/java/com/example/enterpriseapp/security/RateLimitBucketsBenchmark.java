@@ -0,0 +1,72 @@
+package com.example.enterpriseapp.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cena rozhodnutí RateLimitBuckets (běžný případ = požadavek projde).
+ * <p>
+ * Spuštění: mvn test-compile exec:java -Dexec.mainClass=com.example.enterpriseapp.security.RateLimitBucketsBenchmark
+ * -Dexec.classpathScope=test (nebo main z IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitBucketsBenchmark {
+
+    private static final int KEYS = 100_000;
+
+    private RateLimitBuckets buckets;
+    private int[] keyHashes;
+    private long base;
+
+    @Setup
+    public void setUp() {
+        buckets = new RateLimitBuckets(16384);
+        keyHashes = new int[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keyHashes[i] = ("10." + (i >> 16) + "." + ((i >> 8) & 0xFF) + "." + (i & 0xFF)).hashCode();
+        }
+        base = System.nanoTime();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long singleThread() {
+        return acquire();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long contended() {
+        return acquire();
+    }
+
+    // Vysoký limit, aby se měřila cesta "projde" a ne odmítnutí
+    private long acquire() {
+        int hash = keyHashes[ThreadLocalRandom.current().nextInt(KEYS)];
+        return buckets.tryAcquire(hash, System.nanoTime() - base, 1_000, 1_000_000_000L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateLimitBucketsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.enterpriseapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitBucketsTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        RateLimitBuckets buckets = new RateLimitBuckets(1024);
+        // 10 požadavků za sekundu, burst 5
+        long interval = SECOND / 10;
+        long tolerance = interval * 4;
+        long now = SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, buckets.tryAcquire(42, now, interval, tolerance));
+        }
+        long wait = buckets.tryAcquire(42, now, interval, tolerance);
+        assertEquals(interval, wait);
+        assertEquals(0, buckets.tryAcquire(7, now, interval, tolerance));
+
+        assertEquals(0, buckets.tryAcquire(42, now + wait, interval, tolerance));
+        assertTrue(buckets.tryAcquire(42, now + wait, interval, tolerance) > 0);
+    }
+
+    @Test
+    void keysCollidingInOneRowDoNotThrottleEachOther() {
+        int width = 16;
+        RateLimitBuckets buckets = new RateLimitBuckets(width);
+        long interval = SECOND / 10;
+        long tolerance = interval * 4;
+        long now = SECOND;
+
+        // Dva klíče se stejným slotem v prvním řádku a různým ve druhém
+        int busy = 1;
+        int quiet = busy + 1;
+        while ((HashMixer.mix(quiet, 0) & (width - 1)) != (HashMixer.mix(busy, 0) & (width - 1))
+                || (HashMixer.mix(quiet, 1) & (width - 1)) == (HashMixer.mix(busy, 1) & (width - 1))) {
+            quiet++;
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, buckets.tryAcquire(busy, now, interval, tolerance));
+        }
+        assertTrue(buckets.tryAcquire(busy, now, interval, tolerance) > 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, buckets.tryAcquire(quiet, now, interval, tolerance));
+        }
+        assertTrue(buckets.tryAcquire(quiet, now, interval, tolerance) > 0);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.dto.BulkRoleRequest;
+import com.example.enterpriseapp.dto.BulkRoleResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkRoleServiceTest {
+
+    private static final LocalDateTime ORIGINAL = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private BulkRoleService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bulk-roles-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DAY,VALUE",
+                "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(255) NOT NULL UNIQUE, updated_at DATETIME(6))");
+        jdbcTemplate.execute("CREATE TABLE roles (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL UNIQUE)");
+        jdbcTemplate.execute("CREATE TABLE users_roles (user_id BIGINT NOT NULL, role_id BIGINT NOT NULL, PRIMARY KEY (user_id, role_id))");
+        jdbcTemplate.update("INSERT INTO roles VALUES (1, 'ROLE_USER'), (2, 'ROLE_ADMIN')");
+        for (long id = 1; id <= 5; id++) {
+            jdbcTemplate.update("INSERT INTO users VALUES (?, ?, ?)", id, "user" + id, Timestamp.valueOf(ORIGINAL));
+            jdbcTemplate.update("INSERT INTO users_roles VALUES (?, 1)", id);
+        }
+        // user2 je už admin
+        jdbcTemplate.update("INSERT INTO users_roles VALUES (2, 2)");
+
+        RoleRegistry roleRegistry = mock(RoleRegistry.class);
+        when(roleRegistry.ids(Set.of("ROLE_USER"))).thenReturn(List.of(1L));
+        when(roleRegistry.ids(Set.of("ROLE_ADMIN"))).thenReturn(List.of(2L));
+        // Dávka po dvou uživatelích, ať rozsah id projde několika dávkami
+        service = new BulkRoleService(jdbcTemplate, new DataSourceTransactionManager(dataSource), roleRegistry,
+                mock(AuditService.class), mock(UserCache.class), 2);
+    }
+
+    @Test
+    void addByIdRangeTouchesOnlyUsersMissingTheRole() {
+        BulkRoleResult result = service.apply(byRange(BulkRoleRequest.Action.ADD, "ROLE_ADMIN", 1, 5), 99L, "127.0.0.1");
+
+        assertEquals(4, result.getChangedUsers());
+        assertEquals(4, result.getChangedAssignments());
+        assertEquals(3, result.getBatches());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), holders(2));
+        assertEquals(List.of(1L, 3L, 4L, 5L), touched());
+    }
+
+    @Test
+    void addByUsernamesWithRoleAlreadyPresentChangesNothing() {
+        BulkRoleResult result = service.apply(byUsernames(BulkRoleRequest.Action.ADD, "ROLE_ADMIN", "user2"), 99L, "127.0.0.1");
+
+        assertEquals(0, result.getChangedUsers());
+        assertEquals(0, result.getChangedAssignments());
+        assertEquals(List.of(), touched());
+    }
+
+    @Test
+    void removeByUsernamesTouchesOnlyUsersThatHadTheRole() {
+        BulkRoleResult result = service.apply(byUsernames(BulkRoleRequest.Action.REMOVE, "ROLE_ADMIN", "user1", "user2", "user3"),
+                99L, "127.0.0.1");
+
+        assertEquals(1, result.getChangedUsers());
+        assertEquals(1, result.getChangedAssignments());
+        assertEquals(2, result.getBatches());
+        assertEquals(List.of(), holders(2));
+        assertEquals(List.of(2L), touched());
+    }
+
+    @Test
+    void removeByIdRangeStaysInsideTheRange() {
+        BulkRoleResult result = service.apply(byRange(BulkRoleRequest.Action.REMOVE, "ROLE_USER", 2, 3), 99L, "127.0.0.1");
+
+        assertEquals(2, result.getChangedUsers());
+        assertEquals(2, result.getChangedAssignments());
+        assertEquals(List.of(1L, 4L, 5L), holders(1));
+        assertEquals(List.of(2L, 3L), touched());
+    }
+
+    private List<Long> holders(long roleId) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM users_roles WHERE role_id = ? ORDER BY user_id", Long.class, roleId);
+    }
+
+    private List<Long> touched() {
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE updated_at <> ? ORDER BY id", Long.class,
+                Timestamp.valueOf(ORIGINAL));
+    }
+
+    private static BulkRoleRequest byRange(BulkRoleRequest.Action action, String role, long from, long to) {
+        BulkRoleRequest request = new BulkRoleRequest();
+        request.setAction(action);
+        request.setRoles(Set.of(role));
+        request.setFromUserId(from);
+        request.setToUserId(to);
+        return request;
+    }
+
+    private static BulkRoleRequest byUsernames(BulkRoleRequest.Action action, String role, String... usernames) {
+        BulkRoleRequest request = new BulkRoleRequest();
+        request.setAction(action);
+        request.setRoles(Set.of(role));
+        request.setUsernames(List.of(usernames));
+        return request;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.entity.RefreshToken;
+import com.example.enterpriseapp.repository.RefreshTokenRepository;
+import com.example.enterpriseapp.security.VerifiedToken;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+// Bez testovací transakce - rotace musí commitovat (a při chybě rollbackovat) sama
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:refresh-tokens;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DAY,VALUE",
+        "app.jwt.refresh-expiration=60000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RefreshTokenService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+
+    private static final long USER_ID = 42L;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @MockitoSpyBean
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Test
+    void rotationMarksPresentedTokenUsedAndIssuesSuccessorInFamily() {
+        RefreshToken issued = refreshTokenService.issue(USER_ID, null);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(presented(issued));
+
+        assertEquals(RefreshTokenService.Status.ROTATED, rotation.getStatus());
+        assertEquals(issued.getFamilyId(), rotation.getFamilyId());
+        assertTrue(stored(issued.getId()).isRevoked());
+        RefreshToken successor = stored(rotation.getTokenId());
+        assertFalse(successor.isRevoked());
+        assertEquals(issued.getFamilyId(), successor.getFamilyId());
+    }
+
+    @Test
+    void reusingRotatedTokenRevokesWholeFamily() {
+        RefreshToken issued = refreshTokenService.issue(USER_ID, null);
+        String successorId = refreshTokenService.rotate(presented(issued)).getTokenId();
+
+        RefreshTokenService.Rotation replay = refreshTokenService.rotate(presented(issued));
+
+        assertEquals(RefreshTokenService.Status.REUSED, replay.getStatus());
+        assertTrue(stored(successorId).isRevoked());
+        RefreshToken successor = stored(successorId);
+        assertEquals(RefreshTokenService.Status.REUSED, refreshTokenService.rotate(presented(successor)).getStatus());
+    }
+
+    @Test
+    void failedDatabaseUpdateLeavesTokenUsableForRetry() {
+        RefreshToken issued = refreshTokenService.issue(USER_ID, null);
+        doThrow(new QueryTimeoutException("timeout")).when(refreshTokenRepository).markUsed(anyString());
+
+        assertThrows(QueryTimeoutException.class, () -> refreshTokenService.rotate(presented(issued)));
+        assertFalse(stored(issued.getId()).isRevoked());
+
+        reset(refreshTokenRepository);
+        assertEquals(RefreshTokenService.Status.ROTATED, refreshTokenService.rotate(presented(issued)).getStatus());
+    }
+
+    @Test
+    void purgeDeletesOnlyExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        String expired = UUID.randomUUID().toString();
+        refreshTokenRepository.save(new RefreshToken(expired, UUID.randomUUID().toString(), USER_ID, now.minusMinutes(1)));
+        RefreshToken valid = refreshTokenService.issue(USER_ID, null);
+
+        refreshTokenService.purgeExpired();
+
+        assertFalse(refreshTokenRepository.existsById(expired));
+        assertTrue(refreshTokenRepository.existsById(valid.getId()));
+    }
+
+    private static VerifiedToken presented(RefreshToken token) {
+        long now = System.currentTimeMillis();
+        return new VerifiedToken(null, token.getUserId(), now, now + 60_000, null, 0,
+                token.getId(), token.getFamilyId());
+    }
+
+    private RefreshToken stored(String id) {
+        return refreshTokenRepository.findById(id).orElseThrow();
+    }
+}
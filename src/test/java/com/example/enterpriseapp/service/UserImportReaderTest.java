@@ -0,0 +1,72 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.exception.CustomException;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserImportReaderTest {
+
+    @Test
+    void readsCsvByHeaderWithQuotedValues() throws IOException {
+        UserImportReader reader = reader(UserImportService.Format.CSV,
+                "password,username,email\n"
+                        + "secret,alice,alice@example.com\n"
+                        + "\n"
+                        + "\"pa,ss\"\"word\",bob,\n"
+                        + "\"multi\nline\",carol,carol@example.com\n");
+
+        UserImportReader.Row alice = reader.next();
+        assertEquals(1, alice.number);
+        assertEquals("alice", alice.username);
+        assertEquals("alice@example.com", alice.email);
+        assertEquals("secret", alice.password);
+
+        UserImportReader.Row bob = reader.next();
+        assertEquals(2, bob.number);
+        assertEquals("pa,ss\"word", bob.password);
+        assertNull(bob.email);
+
+        UserImportReader.Row carol = reader.next();
+        assertEquals("multi\nline", carol.password);
+        assertEquals("carol", carol.username);
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsCsvWithoutRequiredColumns() {
+        assertThrows(CustomException.class, () -> reader(UserImportService.Format.CSV, "username,email\nalice,a@b.c\n"));
+    }
+
+    @Test
+    void reportsMalformedJsonPerRowAndContinues() throws IOException {
+        UserImportReader reader = reader(UserImportService.Format.NDJSON,
+                "{\"username\":\"alice\",\"password\":\"secret\",\"extra\":{\"a\":1}}\n"
+                        + "{\"username\":\n"
+                        + "[1,2]\n"
+                        + "{\"username\":\"bob\",\"email\":null,\"password\":\"x\"}\n");
+
+        UserImportReader.Row alice = reader.next();
+        assertEquals("alice", alice.username);
+        assertEquals("secret", alice.password);
+        assertNull(alice.error);
+
+        assertEquals("Malformed JSON", reader.next().error);
+        assertEquals("Row is not a JSON object", reader.next().error);
+
+        UserImportReader.Row bob = reader.next();
+        assertEquals(4, bob.number);
+        assertNull(bob.email);
+        assertNull(reader.next());
+    }
+
+    private static UserImportReader reader(UserImportService.Format format, String input) throws IOException {
+        return new UserImportReader(new BufferedReader(new StringReader(input)), format);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.enterpriseapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserImportService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:import-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // VARCHAR_IGNORECASE jako case-insensitive collation MySQL
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR_IGNORECASE(255) NOT NULL UNIQUE, "
+                + "email VARCHAR(255), password VARCHAR(255), created_at DATETIME(6), updated_at DATETIME(6))");
+        jdbcTemplate.execute("CREATE TABLE users_roles (user_id BIGINT NOT NULL, role_id BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO users (id, username) VALUES (1, 'Alice')");
+
+        RoleRegistry roleRegistry = mock(RoleRegistry.class);
+        when(roleRegistry.ids(List.of("ROLE_USER"))).thenReturn(List.of(1L));
+        service = new UserImportService(jdbcTemplate, new DataSourceTransactionManager(dataSource), roleRegistry,
+                new BCryptPasswordEncoder(4), new SimpleMeterRegistry(), 0, 500, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void reportsCaseVariantsAsRowErrors() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UserImportService.Result result = service.importUsers(new ByteArrayInputStream((
+                        "username,password\n"
+                                + "alice,secret\n"
+                                + "Bob,secret\n"
+                                + "BOB,secret\n"
+                                + "carol,secret\n").getBytes(StandardCharsets.UTF_8)),
+                UserImportService.Format.CSV, 0, out);
+
+        assertEquals(4, result.getRows());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        String output = out.toString(StandardCharsets.UTF_8);
+        assertTrue(output.contains("\"username\":\"alice\",\"error\":\"Username already exists\""), output);
+        assertTrue(output.contains("\"username\":\"BOB\",\"error\":\"Duplicate username in input\""), output);
+        assertEquals(List.of("Alice", "Bob", "carol"),
+                jdbcTemplate.queryForList("SELECT username FROM users ORDER BY id", String.class));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.enterpriseapp.service;
+
+import com.example.enterpriseapp.common.KeysetCursor;
+import com.example.enterpriseapp.dto.KeysetPage;
+import com.example.enterpriseapp.dto.UserListFilter;
+import com.example.enterpriseapp.dto.UserListItem;
+import com.example.enterpriseapp.exception.CustomException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-query;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=DAY,VALUE"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserQueryService.class)
+class UserQueryServiceTest {
+
+    private static final LocalDateTime SAME = LocalDateTime.of(2025, 3, 1, 10, 0, 0, 123_456_000);
+
+    @Autowired
+    private UserQueryService userQueryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private RoleRegistry roleRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO roles (id, name) VALUES (1, 'ROLE_USER'), (2, 'ROLE_ADMIN')");
+        // Pět uživatelů se stejným created_at, jeden novější a jeden starší
+        for (long id = 1; id <= 5; id++) {
+            insertUser(id, SAME);
+        }
+        insertUser(6, SAME.plusSeconds(1));
+        insertUser(7, SAME.minusSeconds(1));
+        for (long id = 1; id <= 7; id++) {
+            jdbcTemplate.update("INSERT INTO users_roles (user_id, role_id) VALUES (?, 1)", id);
+        }
+        jdbcTemplate.update("INSERT INTO users_roles (user_id, role_id) VALUES (2, 2), (4, 2)");
+    }
+
+    @Test
+    void pagesThroughEqualCreatedAtWithoutGapsOrDuplicates() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<UserListItem> page = userQueryService.search(new UserListFilter(), cursor, 2);
+            page.getItems().forEach(item -> seen.add(item.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // (createdAt, id) sestupně - hranice stránek padají doprostřed stejného created_at
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L, 1L, 7L), seen);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void fullLastPageHasNoCursor() {
+        KeysetPage<UserListItem> page = userQueryService.search(new UserListFilter(), null, 7);
+
+        assertEquals(7, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void cursorKeepsMicrosecondsAndId() {
+        KeysetPage<UserListItem> page = userQueryService.search(new UserListFilter(), null, 3);
+
+        KeysetCursor cursor = KeysetCursor.decode(page.getNextCursor());
+        assertEquals(SAME, cursor.getTimestamp());
+        assertEquals(4L, cursor.getId());
+        // Celé minuty LocalDateTime.toString() zkracuje (bez sekund) - i to se musí dekódovat
+        LocalDateTime wholeMinute = LocalDateTime.of(2025, 3, 1, 10, 0);
+        assertEquals(wholeMinute, KeysetCursor.decode(new KeysetCursor(wholeMinute, 1L).encode()).getTimestamp());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        CustomException e = assertThrows(CustomException.class,
+                () -> userQueryService.search(new UserListFilter(), "not-a-cursor", 2));
+        assertEquals(400, e.getErrorCode());
+    }
+
+    @Test
+    void roleFilterReturnsEachMatchingUserOnceWithAllRoles() {
+        UserListFilter filter = new UserListFilter();
+        filter.setRole("ROLE_ADMIN");
+
+        KeysetPage<UserListItem> page = userQueryService.search(filter, null, 10);
+
+        assertEquals(List.of(4L, 2L), page.getItems().stream().map(UserListItem::getId).toList());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), page.getItems().get(0).getRoles());
+    }
+
+    private void insertUser(long id, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, created_at, updated_at) VALUES (?, ?, ?, 'x', ?, ?)",
+                id, "user" + id, "user" + id + "@example.com", Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt));
+    }
+}